@@ -0,0 +1,152 @@
+package com.forum.forum.config.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.controller.dto.TopicDTO;
+import com.forum.forum.model.Topic;
+
+/**
+ * Evicts only the pages of "listOfTopics" that a write can actually change,
+ * instead of wiping the whole cache on every write, and the cached "topicDetails" of the changed topic.
+ * 
+ * The caches are read through {@link #get}: an entry loaded while an eviction ran may hold the rows from
+ * before the write (read before the commit, put after the eviction), so it is evicted again.
+ */
+@Component
+public class TopicCacheEvictor {
+
+	public static final String LIST_OF_TOPICS = "listOfTopics";
+	public static final String TOPIC_DETAILS = "topicDetails";
+
+	@Autowired
+	private CacheManager cacheManager;
+	
+	//incremented before every eviction
+	private final AtomicLong evictions = new AtomicLong();
+	
+	public <T> T get(String cacheName, Object key, Callable<T> loader) {
+		Cache cache = cacheManager.getCache(cacheName);
+		long before = evictions.get();
+		boolean[] loaded = { false };
+		T value = cache.get(key, () -> {
+			loaded[0] = true;
+			return loader.call();
+		});
+		if (loaded[0] && evictions.get() != before) {
+			cache.evict(key);
+		}
+		return value;
+	}
+
+	//A new topic has the highest id, so it shows up on the first page of its course and of the unfiltered list.
+	// Deeper pages shift by one item, which the cache TTL takes care of.
+	// Its detail may be cached as missing (a read of its id before the commit).
+	public void topicCreated(Topic topic) {
+		String courseName = courseName(topic);
+		evictIf((key, page) -> key.isListOf(courseName) && (!key.isDefaultOrder() || key.getPage() == 0));
+		evictDetail(topic.getId());
+	}
+
+	//Only the page holding the topic changes (plus lists in another order, where the topic may move)
+	public void topicUpdated(Topic topic) {
+		topicUpdated(topic.getId(), courseName(topic));
+	}
+
+	public void topicUpdated(Long id, String courseName) {
+		evictIf((key, page) -> contains(page, id) || (key.isListOf(courseName) && !key.isDefaultOrder()));
+		evictDetail(id);
+	}
+
+	//An edit without its course (not read back): in the default order only the page holding the topic changes,
+	// in the other orders the topic may move in any list
+	public void topicEdited(Long id) {
+		evictIf((key, page) -> contains(page, id) || !key.isDefaultOrder());
+		evictDetail(id);
+	}
+
+	//Removing a topic pulls up every item after it, so the page holding it and the following ones are evicted
+	public void topicDeleted(Topic topic) {
+		topicDeleted(topic.getId(), courseName(topic));
+	}
+
+	public void topicDeleted(Long id, String courseName) {
+		evictIf((key, page) -> key.isListOf(courseName) && (!key.isDefaultOrder() || endsAtOrBefore(page, id)));
+		evictDetail(id);
+	}
+
+	//bulk imports: every list, and the details of the new ids that may be cached as missing
+	public void topicsImported() {
+		evictions.incrementAndGet();
+		for (String name : new String[] { LIST_OF_TOPICS, TOPIC_DETAILS }) {
+			Cache cache = cacheManager.getCache(name);
+			if (cache != null) {
+				cache.clear();
+			}
+		}
+	}
+
+	//also used by the writes that change only the detail of a topic (e.g. its answers)
+	public void evictDetail(Long id) {
+		AfterCommit.run(() -> {
+			evictions.incrementAndGet();
+			Cache cache = cacheManager.getCache(TOPIC_DETAILS);
+			if (cache != null) {
+				cache.evict(id);
+			}
+		});
+	}
+
+	//evicting before the commit would let a concurrent read put the old rows back in the cache
+	private void evictIf(BiPredicate<TopicListKey, Object> affected) {
+		AfterCommit.run(() -> evictNow(affected));
+	}
+
+	private void evictNow(BiPredicate<TopicListKey, Object> affected) {
+		evictions.incrementAndGet();
+		Cache cache = cacheManager.getCache(LIST_OF_TOPICS);
+		if (cache == null) {
+			return;
+		}
+		if (!(cache instanceof CaffeineCache)) {
+			cache.clear();
+			return;
+		}
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+		nativeCache.asMap().entrySet().removeIf(entry -> !(entry.getKey() instanceof TopicListKey)
+				|| affected.test((TopicListKey) entry.getKey(), entry.getValue()));
+	}
+
+	private static boolean contains(Object page, Long id) {
+		return content(page).stream().anyMatch(dto -> dto.getId().equals(id));
+	}
+
+	//with "id DESC", a page is affected by the removal of "id" when its last (smallest) id is not greater than it
+	private static boolean endsAtOrBefore(Object page, Long id) {
+		List<TopicDTO> content = content(page);
+		return content.isEmpty() || content.get(content.size() - 1).getId() <= id;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<TopicDTO> content(Object page) {
+		if (!(page instanceof Slice)) {
+			return Collections.emptyList();
+		}
+		return ((Slice<TopicDTO>) page).getContent();
+	}
+
+	private static String courseName(Topic topic) {
+		return topic.getCurso() == null ? null : topic.getCurso().getName();
+	}
+}
@@ -0,0 +1,82 @@
+package com.forum.forum.config.cache;
+
+import java.util.Objects;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * Key of one cached page of the topic list: the course filter (null for the unfiltered list),
+ * the page coordinates, the ordering and whether it is a Slice (no total) or a Page.
+ */
+public final class TopicListKey {
+
+	private static final Sort DEFAULT_ORDER = Sort.by(Direction.DESC, "id");
+
+	private final String courseName;
+	private final int page;
+	private final int size;
+	private final Sort sort;
+	private final boolean slice;
+
+	public TopicListKey(String courseName, Pageable pageable, boolean slice) {
+		this.courseName = courseName;
+		this.page = pageable.getPageNumber();
+		this.size = pageable.getPageSize();
+		this.sort = pageable.getSort();
+		this.slice = slice;
+	}
+
+	//true when the key belongs to the unfiltered list or to the list of the given course
+	public boolean isListOf(String courseName) {
+		return this.courseName == null || this.courseName.equals(courseName);
+	}
+
+	//the default order is "newest first", the only one where we know where a new topic lands
+	public boolean isDefaultOrder() {
+		return DEFAULT_ORDER.equals(sort);
+	}
+
+	public String getCourseName() {
+		return courseName;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public Sort getSort() {
+		return sort;
+	}
+
+	public boolean isSlice() {
+		return slice;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(courseName, page, size, sort, slice);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		TopicListKey other = (TopicListKey) obj;
+		return page == other.page && size == other.size && slice == other.slice && Objects.equals(courseName, other.courseName)
+				&& Objects.equals(sort, other.sort);
+	}
+
+	@Override
+	public String toString() {
+		return courseName + ":" + page + ":" + size + ":" + sort + (slice ? ":slice" : "");
+	}
+
+}
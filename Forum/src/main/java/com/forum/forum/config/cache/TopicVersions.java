@@ -0,0 +1,55 @@
+package com.forum.forum.config.cache;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.forum.forum.controller.dto.AnswerDTO;
+import com.forum.forum.controller.dto.TopicDTO;
+import com.forum.forum.controller.dto.TopicDetailDTO;
+
+/**
+ * ETags of the topic representations, derived from the data of the representation being returned
+ * (usually read from the topic caches), so a conditional GET gets its 304 without the serialization
+ * nor the body, and any JVM gives the same ETag for the same data.
+ *
+ * A topic: its @Version (title and post), answer count and last activity (answers and status changes),
+ * status and the resolved flags of its answers. A list: the same columns of every topic of the page,
+ * its total and whether there is a next page. The names of the authors are not part of them.
+ * There is no Last-Modified: with a resolution of one second it cannot tell two writes of the same second apart.
+ */
+@Component
+public class TopicVersions {
+
+	public String topic(TopicDetailDTO topic) {
+		StringBuilder data = new StringBuilder();
+		append(data, topic.getId(), topic.getVersion(), topic.getAnswerCount(), topic.getLastActivity(), topic.getStatus());
+		for (AnswerDTO answer : topic.getAnswers()) {
+			append(data, answer.getId(), answer.getResolved());
+		}
+		return eTag(data);
+	}
+
+	public String list(Slice<TopicDTO> topics) {
+		StringBuilder data = new StringBuilder();
+		append(data, topics.hasNext(), topics instanceof Page ? ((Page<TopicDTO>) topics).getTotalElements() : null);
+		for (TopicDTO topic : topics.getContent()) {
+			append(data, topic.getId(), topic.getVersion(), topic.getAnswerCount(), topic.getLastActivity());
+		}
+		return eTag(data);
+	}
+
+	private static void append(StringBuilder data, Object... values) {
+		for (Object value : values) {
+			data.append(value).append('|');
+		}
+		data.append('\n');
+	}
+
+	private static String eTag(StringBuilder data) {
+		return "\"" + DigestUtils.md5DigestAsHex(data.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+	}
+}
@@ -0,0 +1,55 @@
+package com.forum.forum.config.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured DataSource when {@code forum.datasource.replica.urls} is set:
+ * the primary keeps the spring.datasource.* settings, each url is a read-only replica pool.
+ * Read-only transactions ({@code @Transactional(readOnly = true)}) are routed to the replicas, see ReplicaRoutingDataSource.
+ */
+@Configuration
+@ConditionalOnProperty("forum.datasource.replica.urls")
+//exclusive with the shards, ShardingConfiguration fails the startup when both are set
+@ConditionalOnExpression("'${forum.datasource.shard.urls:}'.isEmpty()")
+public class ReplicaDataSourceConfiguration {
+
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties,
+			@Value("${forum.datasource.replica.urls}") List<String> urls,
+			@Value("${forum.datasource.replica.username:${spring.datasource.username:}}") String username,
+			@Value("${forum.datasource.replica.password:${spring.datasource.password:}}") String password,
+			@Value("${forum.datasource.replica.read-your-writes:5s}") Duration readYourWrites) {
+		DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+					.url(urls.get(i)).username(username).password(password).build();
+			replica.setPoolName(ReplicaRoutingDataSource.replica(i));
+			replica.setReadOnly(true);
+			targets.put(ReplicaRoutingDataSource.replica(i), replica);
+		}
+		
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(urls.size(), readYourWrites);
+		routing.setTargetDataSources(targets);
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+}
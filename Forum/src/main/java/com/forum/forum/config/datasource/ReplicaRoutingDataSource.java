@@ -0,0 +1,97 @@
+package com.forum.forum.config.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.forum.forum.config.security.AuthenticatedUser;
+import com.forum.forum.config.transaction.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Sends the connections of read-only transactions to the replicas (round-robin) and everything else to the primary.
+ * 
+ * Read-your-writes: for a while after a user commits a write, the read-only transactions of that user
+ * still go to the primary, so a replica lagging behind cannot hide the user's own changes.
+ * Loads that fill a cache shared by every user ({@link #forSharedCache}) go to the primary for a while after
+ * any write: a lagging replica would otherwise put stale rows in the cache, behind a fresh ETag, for everyone.
+ * Must be wrapped in a LazyConnectionDataSourceProxy: the transaction manager asks for the connection
+ * before the transaction is marked read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	private static final ThreadLocal<Boolean> SHARED_CACHE_LOAD = new ThreadLocal<>();
+
+	private final int replicas;
+	private final AtomicInteger next = new AtomicInteger();
+	//user id -> commit time of the last write, present while inside the window
+	private final Cache<Long, Long> recentWriters;
+	//commit time of the last write of anyone
+	private final AtomicLong lastWrite = new AtomicLong();
+	private final long window;
+
+	public ReplicaRoutingDataSource(int replicas, Duration readYourWritesWindow) {
+		this.replicas = replicas;
+		this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+		this.window = readYourWritesWindow.toMillis();
+	}
+
+	/**
+	 * Runs a load whose result goes to a cache shared by every user. Must run before the transaction
+	 * gets its connection, i.e. hold the first query of the transaction.
+	 */
+	public static <T> T forSharedCache(Supplier<T> load) {
+		SHARED_CACHE_LOAD.set(Boolean.TRUE);
+		try {
+			return load.get();
+		} finally {
+			SHARED_CACHE_LOAD.remove();
+		}
+	}
+
+	static String replica(int index) {
+		return "replica-" + index;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return PRIMARY;
+		}
+		Long userId = currentUserId();
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			AfterCommit.run(() -> {
+				long now = System.currentTimeMillis();
+				lastWrite.accumulateAndGet(now, Math::max);
+				if (userId != null) {
+					recentWriters.put(userId, now);
+				}
+			});
+			return PRIMARY;
+		}
+		if (replicas == 0 || (userId != null && recentWriters.getIfPresent(userId) != null)) {
+			return PRIMARY;
+		}
+		if (SHARED_CACHE_LOAD.get() != null && System.currentTimeMillis() - lastWrite.get() < window) {
+			return PRIMARY;
+		}
+		return replica(Math.floorMod(next.getAndIncrement(), replicas));
+	}
+
+	private static Long currentUserId() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+			return ((AuthenticatedUser) authentication.getPrincipal()).getId();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,54 @@
+package com.forum.forum.config.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.forum.forum.model.User;
+
+/**
+ * Immutable snapshot of the authenticated user, used as the principal of token authenticated requests.
+ * Unlike the User entity it can be shared between requests and threads.
+ */
+public final class AuthenticatedUser {
+
+	private final Long id;
+	private final String name;
+	private final String email;
+	private final List<GrantedAuthority> authorities;
+
+	public AuthenticatedUser(User user) {
+		this.id = user.getId();
+		this.name = user.getName();
+		this.email = user.getEmail();
+		this.authorities = Collections.unmodifiableList(user.getAuthorities().stream()
+				.map(authority -> new SimpleGrantedAuthority(authority.getAuthority()))
+				.collect(Collectors.toList()));
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public Collection<GrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+
+	@Override
+	public String toString() {
+		return email;
+	}
+
+}
@@ -0,0 +1,287 @@
+package com.forum.forum.config.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Encoder/decoder of our fixed token shape: header {"alg":"HS256"}, claims iss, sub, iat, exp.
+ * 
+ * It writes exactly the bytes jjwt 0.9.1 writes for TokenService's builder (same header, same claim
+ * order, dates in seconds, base64url without padding), so tokens of both are interchangeable.
+ * The key is derived once, each thread reuses its own Mac and buffers, and only "sub" and "exp"
+ * are read from the claims, with no map nor Jackson tree in the way.
+ * 
+ * decode throws IllegalArgumentException for any other shape (e.g. another header or nested claims),
+ * the caller is expected to fall back to jjwt for those.
+ */
+public class Hs256TokenCodec {
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int SIGNATURE_LENGTH = 32;
+	private static final String HEADER = Base64.getUrlEncoder().withoutPadding()
+			.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+	private static final byte[] DECODE = new byte[128];
+
+	static {
+		Arrays.fill(DECODE, (byte) -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		for (int i = 0; i < alphabet.length(); i++) {
+			DECODE[alphabet.charAt(i)] = (byte) i;
+		}
+	}
+
+	private final SecretKeySpec key;
+	private final String issuerJson;
+	private final ThreadLocal<Mac> macs;
+	private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+	public Hs256TokenCodec(byte[] key, String issuer) {
+		this.key = new SecretKeySpec(key, ALGORITHM);
+		try {
+			this.issuerJson = new ObjectMapper().writeValueAsString(issuer);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException(e);
+		}
+		this.macs = ThreadLocal.withInitial(this::newMac);
+		newMac();
+	}
+
+	//times in epoch millis, written in seconds like jjwt does
+	public String encode(Long userId, long issuedAt, long expiration) {
+		String claims = "{\"iss\":" + issuerJson + ",\"sub\":\"" + userId + "\",\"iat\":" + issuedAt / 1000
+				+ ",\"exp\":" + expiration / 1000 + "}";
+		String unsigned = HEADER + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+		byte[] signature = macs.get().doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+		return unsigned + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+	}
+
+	/**
+	 * @return the claims, or null when the signature does not match, the token is expired or malformed
+	 * @throws IllegalArgumentException when the token is not of our shape
+	 */
+	public TokenClaims decode(String token, byte[] digest) {
+		int firstDot = token.indexOf('.');
+		int secondDot = token.indexOf('.', firstDot + 1);
+		if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+			return null;
+		}
+		if (firstDot != HEADER.length() || !token.regionMatches(0, HEADER, 0, firstDot)) {
+			throw new IllegalArgumentException("Unsupported token header");
+		}
+		
+		Buffers buffers = this.buffers.get();
+		byte[] ascii = buffers.ascii(token.length());
+		for (int i = 0; i < token.length(); i++) {
+			char c = token.charAt(i);
+			if (c > 127) {
+				return null;
+			}
+			ascii[i] = (byte) c;
+		}
+		
+		Mac mac = macs.get();
+		mac.update(ascii, 0, secondDot);
+		try {
+			mac.doFinal(buffers.mac, 0);
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		}
+		int signatureLength = decode(ascii, secondDot + 1, token.length(), buffers.signature);
+		if (signatureLength != SIGNATURE_LENGTH || !constantTimeEquals(buffers.mac, buffers.signature)) {
+			return null;
+		}
+		
+		byte[] claims = buffers.claims(secondDot - firstDot);
+		int claimsLength = decode(ascii, firstDot + 1, secondDot, claims);
+		if (claimsLength < 0) {
+			return null;
+		}
+		ClaimsReader reader = new ClaimsReader(claims, claimsLength);
+		reader.read();
+		if (reader.subject == null || reader.expiration < 0) {
+			throw new IllegalArgumentException("Unsupported claims");
+		}
+		TokenClaims verified = new TokenClaims(digest, reader.subject, reader.expiration * 1000);
+		//jjwt: expired when now is after exp
+		return System.currentTimeMillis() > verified.getExpiration() ? null : verified;
+	}
+
+	private Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	//base64url without padding, src[from, to) into dst; -1 when invalid or dst too small
+	private static int decode(byte[] src, int from, int to, byte[] dst) {
+		int length = (to - from) * 3 / 4;
+		if ((to - from) % 4 == 1 || length > dst.length) {
+			return -1;
+		}
+		int bits = 0;
+		int count = 0;
+		int out = 0;
+		for (int i = from; i < to; i++) {
+			int value = src[i] < 0 ? -1 : DECODE[src[i]];
+			if (value < 0) {
+				return -1;
+			}
+			bits = (bits << 6) | value;
+			count += 6;
+			if (count >= 8) {
+				count -= 8;
+				dst[out++] = (byte) (bits >> count);
+			}
+		}
+		return out;
+	}
+
+	private static boolean constantTimeEquals(byte[] a, byte[] b) {
+		int difference = 0;
+		for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+			difference |= a[i] ^ b[i];
+		}
+		return difference == 0;
+	}
+
+	private static final class Buffers {
+
+		private final byte[] mac = new byte[SIGNATURE_LENGTH];
+		private final byte[] signature = new byte[SIGNATURE_LENGTH + 2];
+		private byte[] ascii = new byte[512];
+		private byte[] claims = new byte[256];
+
+		private byte[] ascii(int length) {
+			if (ascii.length < length) {
+				ascii = new byte[length];
+			}
+			return ascii;
+		}
+
+		private byte[] claims(int encodedLength) {
+			int length = encodedLength * 3 / 4 + 1;
+			if (claims.length < length) {
+				claims = new byte[length];
+			}
+			return claims;
+		}
+	}
+
+	/**
+	 * Reads a flat JSON object of strings and integers, keeping "sub" (as a user id) and "exp".
+	 * Anything else (escapes, nested values, decimals) is not our shape.
+	 */
+	private static final class ClaimsReader {
+
+		private final byte[] json;
+		private final int length;
+		private int position;
+		private Long subject;
+		private long expiration = -1;
+
+		private ClaimsReader(byte[] json, int length) {
+			this.json = json;
+			this.length = length;
+		}
+
+		private void read() {
+			expect('{');
+			if (peek() == '}') {
+				return;
+			}
+			while (true) {
+				int nameStart = position + 1;
+				int nameEnd = skipString();
+				expect(':');
+				if (peek() == '"') {
+					int valueStart = position + 1;
+					int valueEnd = skipString();
+					if (is("sub", nameStart, nameEnd)) {
+						subject = number(valueStart, valueEnd);
+					}
+				} else {
+					int valueStart = position;
+					while (position < length && json[position] >= '0' && json[position] <= '9') {
+						position++;
+					}
+					long value = number(valueStart, position);
+					if (is("exp", nameStart, nameEnd)) {
+						expiration = value;
+					}
+				}
+				if (peek() == ',') {
+					position++;
+					continue;
+				}
+				expect('}');
+				return;
+			}
+		}
+
+		private int peek() {
+			if (position >= length) {
+				throw new IllegalArgumentException("Unsupported claims");
+			}
+			return json[position];
+		}
+
+		private void expect(char c) {
+			if (peek() != c) {
+				throw new IllegalArgumentException("Unsupported claims");
+			}
+			position++;
+		}
+
+		//returns the end (exclusive) of the string content and moves after the closing quote
+		private int skipString() {
+			expect('"');
+			while (peek() != '"') {
+				if (json[position] == '\\') {
+					throw new IllegalArgumentException("Unsupported claims");
+				}
+				position++;
+			}
+			return position++;
+		}
+
+		private boolean is(String name, int start, int end) {
+			if (end - start != name.length()) {
+				return false;
+			}
+			for (int i = 0; i < name.length(); i++) {
+				if (json[start + i] != name.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private long number(int start, int end) {
+			if (start == end || end - start > 18) {
+				throw new IllegalArgumentException("Unsupported claims");
+			}
+			long value = 0;
+			for (int i = start; i < end; i++) {
+				if (json[i] < '0' || json[i] > '9') {
+					throw new IllegalArgumentException("Unsupported claims");
+				}
+				value = value * 10 + (json[i] - '0');
+			}
+			return value;
+		}
+	}
+}
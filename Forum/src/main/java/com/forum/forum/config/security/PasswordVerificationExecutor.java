@@ -0,0 +1,70 @@
+package com.forum.forum.config.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.forum.forum.config.sql.SqlTrace;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs the password verifications (BCrypt, tens of ms of CPU each) on a pool sized by the CPUs,
+ * so a login storm cannot take the Tomcat threads that serve the rest of the API.
+ * The queue is bounded: when it is full the login is refused right away (admission control).
+ * 
+ * Metrics: forum.login.queue.depth, forum.login.active, forum.login.verification (latency)
+ * and forum.login.rejected.
+ */
+@Component
+public class PasswordVerificationExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final Timer verification;
+	private final Counter rejected;
+
+	public PasswordVerificationExecutor(MeterRegistry registry,
+			@Value("${forum.security.login.threads:0}") int threads,
+			@Value("${forum.security.login.queue-size:64}") int queueSize) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("password-verification-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		
+		Gauge.builder("forum.login.queue.depth", executor, pool -> pool.getQueue().size()).register(registry);
+		Gauge.builder("forum.login.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+		this.verification = Timer.builder("forum.login.verification").register(registry);
+		this.rejected = Counter.builder("forum.login.rejected").register(registry);
+	}
+
+	/**
+	 * @throws RejectedExecutionException when the queue is full
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> task) {
+		try {
+			//the statements of the verification (user lookup) count for the login request
+			Supplier<T> timed = () -> verification.record(task);
+			return CompletableFuture.supplyAsync(SqlTrace.propagate(timed), executor);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw e;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,47 @@
+package com.forum.forum.config.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded, time-limited cache of AuthenticatedUser by user id, so authenticating a token
+ * does not select the user and its profiles on every request.
+ * Entries are evicted when a user or a profile changes (see UserChangeListener);
+ * the time limit covers changes made outside of JPA.
+ */
+@Component
+public class PrincipalCache {
+
+	private final UserRepository userRepository;
+	private final Cache<Long, AuthenticatedUser> principals;
+
+	public PrincipalCache(UserRepository userRepository,
+			@Value("${forum.security.principal-cache.size:10000}") long size,
+			@Value("${forum.security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+		this.userRepository = userRepository;
+		this.principals = Caffeine.newBuilder()
+				.maximumSize(size)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+	}
+
+	//null when the user does not exist (anymore)
+	public AuthenticatedUser get(Long userId) {
+		return principals.get(userId, id -> userRepository.findById(id).map(AuthenticatedUser::new).orElse(null));
+	}
+
+	public void evict(Long userId) {
+		AfterCommit.run(() -> principals.invalidate(userId));
+	}
+
+	public void evictAll() {
+		AfterCommit.run(principals::invalidateAll);
+	}
+}
@@ -14,8 +14,6 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import com.forum.forum.repository.UserRepository;
-
 @EnableWebSecurity
 @Configuration
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
@@ -27,7 +25,10 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
 	private TokenService tokenService;
 	
 	@Autowired
-	private UserRepository userRepository;
+	private PrincipalCache principalCache;
+	
+	@Autowired
+	private TokenDenylist tokenDenylist;
 	
 	@Override
 	@Bean
@@ -43,13 +44,15 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 		http.authorizeRequests().
+		antMatchers(HttpMethod.GET, "/topic/export").authenticated().
 		antMatchers(HttpMethod.GET, "/topic").permitAll().
 		antMatchers(HttpMethod.GET, "/topic/*").permitAll().
+		antMatchers(HttpMethod.GET, "/topic/*/answers").permitAll().
 		antMatchers(HttpMethod.POST, "/auth").permitAll(). 
 		anyRequest().authenticated().
 		and().csrf().disable().
 		sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).
-		and().addFilterBefore(new TokenAuthenticatorFilter(tokenService, userRepository), UsernamePasswordAuthenticationFilter.class);
+		and().addFilterBefore(new TokenAuthenticatorFilter(tokenService, principalCache, tokenDenylist), UsernamePasswordAuthenticationFilter.class);
 	}
 	
 	@Override
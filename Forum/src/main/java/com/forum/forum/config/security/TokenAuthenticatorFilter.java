@@ -11,17 +11,16 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.forum.forum.model.User;
-import com.forum.forum.repository.UserRepository;
-
 public class TokenAuthenticatorFilter extends OncePerRequestFilter{
 
 	private TokenService tokenService;
-	private UserRepository userRepository;
+	private PrincipalCache principalCache;
+	private TokenDenylist tokenDenylist;
 	
-	public TokenAuthenticatorFilter(TokenService tokenService, UserRepository userRepository) {
+	public TokenAuthenticatorFilter(TokenService tokenService, PrincipalCache principalCache, TokenDenylist tokenDenylist) {
 		this.tokenService = tokenService;
-		this.userRepository = userRepository;
+		this.principalCache = principalCache;
+		this.tokenDenylist = tokenDenylist;
 	}
 
 	@Override
@@ -30,16 +29,20 @@ public class TokenAuthenticatorFilter extends OncePerRequestFilter{
 		
 
 		String token = getToken(request);
-		boolean tokenIsValid = tokenService.isValid(token);
-		if (tokenIsValid) {
-			authUser(token);
+		//a single verification, which also gives us the claims
+		TokenClaims claims = tokenService.verify(token);
+		if (claims != null && !tokenDenylist.isRevoked(claims)) {
+			authUser(claims.getUserId());
 		}		
 		filterChain.doFilter(request, response);
 	}
 
-	private void authUser(String token) {
-		Long idUser = tokenService.getUserId(token);
-		User user = userRepository.findById(idUser).get();
+	//the principal is an immutable snapshot of the user, cached so this costs no query on the hot path
+	private void authUser(Long idUser) {
+		AuthenticatedUser user = principalCache.get(idUser);
+		if (user == null) {
+			return;
+		}
 		UsernamePasswordAuthenticationToken authentication= new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 	}
@@ -47,7 +50,7 @@ public class TokenAuthenticatorFilter extends OncePerRequestFilter{
 	//this method will validate if the token was sent
 	private String getToken(HttpServletRequest request) {
 		String token = request.getHeader("Authorization");
-		if(token.isEmpty() || token == null || !token.startsWith("Bearer ")) {
+		if(token == null || token.isEmpty() || !token.startsWith("Bearer ")) {
 			return null;
 		}
 		return token.substring(7, token.length());
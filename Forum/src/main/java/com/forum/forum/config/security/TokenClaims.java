@@ -0,0 +1,46 @@
+package com.forum.forum.config.security;
+
+import java.util.Base64;
+
+/**
+ * The claims of a verified token that the API uses, plus the token digest (SHA-256),
+ * which identifies the token without keeping it: the raw bytes for the denylist filter,
+ * base64 encoded for the maps.
+ */
+public final class TokenClaims {
+
+	private final byte[] digestBytes;
+	private final String digest;
+	private final Long userId;
+	private final long expiration;
+
+	public TokenClaims(byte[] digest, Long userId, long expiration) {
+		this.digestBytes = digest;
+		this.digest = digest == null ? null : Base64.getEncoder().encodeToString(digest);
+		this.userId = userId;
+		this.expiration = expiration;
+	}
+
+	public boolean isExpired() {
+		return System.currentTimeMillis() >= expiration;
+	}
+
+	public String getDigest() {
+		return digest;
+	}
+
+	//not copied on every request: must not be modified
+	public byte[] getDigestBytes() {
+		return digestBytes;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	//epoch millis
+	public long getExpiration() {
+		return expiration;
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.forum.forum.config.security;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.model.RevokedToken;
+import com.forum.forum.repository.RevokedTokenRepository;
+
+/**
+ * Revoked tokens, by digest, until their expiration.
+ * 
+ * Every authenticated request asks isRevoked, so the exact set sits behind a Bloom filter:
+ * almost all tokens are answered "not revoked" by a few bit reads of the raw digest, without hashing
+ * (it already is a SHA-256), decoding nor a map lookup. Entries are persisted in revoked_token, reloaded at
+ * startup and purged (memory, table and filter) once expired.
+ */
+@Component
+public class TokenDenylist {
+
+	@Autowired
+	private RevokedTokenRepository revokedTokenRepository;
+
+	private final int expectedEntries;
+	private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+	private volatile BloomFilter filter;
+
+	public TokenDenylist(@Value("${forum.jwt.denylist.expected-entries:100000}") int expectedEntries) {
+		this.expectedEntries = expectedEntries;
+		this.filter = new BloomFilter(expectedEntries);
+	}
+
+	public boolean isRevoked(TokenClaims claims) {
+		return filter.mightContain(claims.getDigestBytes()) && revoked.containsKey(claims.getDigest());
+	}
+
+	@Transactional
+	public void revoke(TokenClaims claims) {
+		revokedTokenRepository.save(new RevokedToken(claims.getDigest(), claims.getExpiration()));
+		AfterCommit.run(() -> add(claims.getDigest(), claims.getExpiration()));
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		revokedTokenRepository.findByExpirationGreaterThan(System.currentTimeMillis())
+				.forEach(token -> add(token.getDigest(), token.getExpiration()));
+	}
+
+	//Expired tokens fail verification anyway, so they leave the denylist; the filter is rebuilt without them
+	@Scheduled(fixedDelayString = "${forum.jwt.denylist.purge-interval:3600000}")
+	@Transactional
+	public void purge() {
+		long now = System.currentTimeMillis();
+		revokedTokenRepository.deleteExpired(now);
+		revoked.values().removeIf(expiration -> expiration <= now);
+		BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2));
+		revoked.keySet().forEach(digest -> rebuilt.put(decode(digest)));
+		//a token revoked while rebuilding is put in both
+		filter = rebuilt;
+		revoked.keySet().forEach(digest -> rebuilt.put(decode(digest)));
+	}
+
+	//the revocations and the reload, not the requests, decode the stored digests
+	private void add(String digest, Long expiration) {
+		revoked.put(digest, expiration);
+		filter.put(decode(digest));
+	}
+
+	private static byte[] decode(String digest) {
+		return Base64.getDecoder().decode(digest);
+	}
+
+	/**
+	 * Bloom filter over SHA-256 digests, sized for 1% false positives at the expected number of entries.
+	 * The bit indexes are taken straight from the digest bytes.
+	 */
+	private static final class BloomFilter {
+
+		private static final int HASHES = 7;
+
+		private final AtomicLongArray bits;
+		private final long size;
+
+		private BloomFilter(int expectedEntries) {
+			//m = -n ln(p) / ln(2)^2, with p = 0.01
+			long bitCount = (long) Math.ceil(-expectedEntries * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+			this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+			this.size = bits.length() * 64L;
+		}
+
+		private void put(byte[] digest) {
+			ByteBuffer hashes = ByteBuffer.wrap(digest);
+			for (int i = 0; i < HASHES; i++) {
+				long index = Integer.toUnsignedLong(hashes.getInt(i * 4)) % size;
+				int word = (int) (index >>> 6);
+				long mask = 1L << index;
+				long current;
+				do {
+					current = bits.get(word);
+				} while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+			}
+		}
+
+		private boolean mightContain(byte[] digest) {
+			ByteBuffer hashes = ByteBuffer.wrap(digest);
+			for (int i = 0; i < HASHES; i++) {
+				long index = Integer.toUnsignedLong(hashes.getInt(i * 4)) % size;
+				if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
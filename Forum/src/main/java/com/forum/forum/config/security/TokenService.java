@@ -1,57 +1,144 @@
 package com.forum.forum.config.security;
 
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import com.forum.forum.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Service
 public class TokenService {
 
+	private static final String ISSUER = "Igor - ForumAPI";
+
 	@Value("${forum.jwt.expiration}")
 	private String experation;
 	
 	@Value("${forum.jwt.secret}")
 	private String secret;
 	
+	private Hs256TokenCodec codec;
+	
+	//Verified tokens, by digest, until their "exp": a client reusing its token is not verified again
+	private final Cache<String, TokenClaims> verified;
+	
+	public TokenService(@Value("${forum.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+		this.verified = Caffeine.newBuilder()
+				.maximumSize(verifiedCacheSize)
+				.expireAfter(new Expiry<String, TokenClaims>() {
+					@Override
+					public long expireAfterCreate(String digest, TokenClaims claims, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getExpiration() - System.currentTimeMillis()));
+					}
+
+					@Override
+					public long expireAfterUpdate(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+
+					@Override
+					public long expireAfterRead(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+	
+	@PostConstruct
+	public void initCodec() {
+		//jjwt takes the string secret as base64 (see signWith(SignatureAlgorithm, String)), the codec uses the same key bytes
+		this.codec = new Hs256TokenCodec(TextCodec.BASE64.decode(secret), ISSUER);
+	}
+	
+	/**
+	 * Same token jjwt would build with:
+	 * .setIssuer - inform, the API responsible for the token generation;
+	 * .setSubject - inform the user resposible;
+	 * .setIssuedAt - inform the Current date;
+	 * .setExpiration - inform the time to expire the token - in our case, it will be 1 day;
+	 * .signWith - it's the type of the algorith that will be generated, and our secret password;
+	 * .compact - transform to String; 
+	 * but written by Hs256TokenCodec, byte for byte equal and without the Jackson maps.
+	 */
 	public String tokenGenerator(Authentication authentication) {
 		User user = (User) authentication.getPrincipal();
-		/**
-		 * .setIssuer - inform, the API responsible for the token generation;
-		 * .setSubject - inform the user resposible;
-		 * .setIssuedAt - inform the Current date;
-		 * .setExpiration - inform the time to expire the token - in our case, it will be 1 day;
-		 * .signWith - it's the type of the algorith that will be generated, and our secret password;
-		 * .compact - transform to String; 
-		 */
-		return Jwts.builder()
-				.setIssuer("Igor - ForumAPI")
-				.setSubject(user.getId().toString())
-				.setIssuedAt(new Date())
-				.setExpiration(new Date(new Date().getTime() + Long.parseLong(experation)))
-				.signWith(SignatureAlgorithm.HS256, secret)
-				.compact();
+		long now = System.currentTimeMillis();
+		return codec.encode(user.getId(), now, now + Long.parseLong(experation));
 	}
 
-	public boolean isValid(String token) {
+	/**
+	 * Verifies the token once (signature and expiration) and returns its claims,
+	 * or null when the token is missing or invalid.
+	 */
+	public TokenClaims verify(String token) {
+		if (token == null) {
+			return null;
+		}
+		byte[] sha256 = sha256(token);
+		String digest = Base64.getEncoder().encodeToString(sha256);
+		TokenClaims claims = verified.getIfPresent(digest);
+		if (claims != null) {
+			return claims.isExpired() ? null : claims;
+		}
 		try {
-			Jwts.parser().setSigningKey(this.secret).parseClaimsJws(token);
-			return true;
+			claims = codec.decode(token, sha256);
+		} catch (IllegalArgumentException unsupportedShape) {
+			claims = verifyWithJjwt(token, sha256);
+		}
+		if (claims != null) {
+			verified.put(digest, claims);
+		}
+		return claims;
+	}
+
+	//tokens that are not of the shape we issue
+	private TokenClaims verifyWithJjwt(String token, byte[] digest) {
+		try {
+			Claims body = Jwts.parser().setSigningKey(this.secret).parseClaimsJws(token).getBody();
+			if (body.getExpiration() == null) {
+				return null;
+			}
+			return new TokenClaims(digest, Long.parseLong(body.getSubject()), body.getExpiration().getTime());
 		} catch (Exception e) {
-			return false;
+			return null;
 		}
 	}
 
+	public boolean isValid(String token) {
+		return verify(token) != null;
+	}
+
 	//Will return the id
 	public Long getUserId(String token) {
-		Claims claims = Jwts.parser().setSigningKey(this.secret).parseClaimsJws(token).getBody();
-		return Long.parseLong(claims.getSubject());
+		TokenClaims claims = verify(token);
+		return claims == null ? null : claims.getUserId();
+	}
+
+	//SHA-256 of the token, base64 encoded
+	public static String digest(String token) {
+		return Base64.getEncoder().encodeToString(sha256(token));
+	}
+
+	static byte[] sha256(String token) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 }
@@ -0,0 +1,32 @@
+package com.forum.forum.config.security;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.forum.forum.model.Profile;
+import com.forum.forum.model.User;
+
+/**
+ * Evicts the cached principals when a user or a profile is changed or removed through JPA.
+ * A change of a profile (its name is the authority) may affect any user, so it clears the whole cache.
+ * Changing only the profiles of a user does not always fire @PostUpdate, so that code should call
+ * PrincipalCache.evict itself.
+ */
+public class UserChangeListener {
+
+	@Autowired
+	private ObjectProvider<PrincipalCache> principalCache;
+
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		if (entity instanceof User) {
+			principalCache.getObject().evict(((User) entity).getId());
+		} else if (entity instanceof Profile) {
+			principalCache.getObject().evictAll();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.forum.forum.model.User;
 import com.forum.forum.repository.UserRepository;
@@ -18,6 +19,7 @@ public class UserService implements UserDetailsService {
 	private UserRepository userRepository;
 	
 	@Override
+	@Transactional(readOnly = true)
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		Optional<User> user = userRepository.findByEmail(username);
 		if(user.isPresent()) {
@@ -0,0 +1,32 @@
+package com.forum.forum.config.sharding;
+
+/**
+ * Shard of the current thread, read by the ShardRoutingDataSource when a connection is needed
+ * and by the ShardedSequenceGenerator when an id is generated. Set through TopicShards.
+ */
+public final class ShardContext {
+
+	//ids keep their shard in the lowest bits: id = sequence value * MAX_SHARDS + shard
+	public static final int MAX_SHARDS = 16;
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private ShardContext() {}
+
+	//null when the topics are not sharded, or outside of TopicShards
+	public static Integer current() {
+		return CURRENT.get();
+	}
+
+	public static void set(Integer shard) {
+		if (shard == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(shard);
+		}
+	}
+
+	public static int of(long id) {
+		return (int) Math.floorMod(id, (long) MAX_SHARDS);
+	}
+}
@@ -0,0 +1,16 @@
+package com.forum.forum.config.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Connections go to the shard of the ShardContext, shard 0 when none is set.
+ * Wrapped in a LazyConnectionDataSourceProxy, so the shard is decided at the first statement of a transaction.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer shard = ShardContext.current();
+		return shard == null ? 0 : shard;
+	}
+}
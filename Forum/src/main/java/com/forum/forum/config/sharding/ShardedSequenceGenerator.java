@@ -0,0 +1,58 @@
+package com.forum.forum.config.sharding;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * The sequence ids of SequenceStyleGenerator (pooled-lo included), with the shard of the ShardContext
+ * in the lowest bits when the topics are sharded, so the shard of a topic is known from its id alone.
+ *
+ * Each shard has its own sequence, so each shard has its own generator (and its own block of pooled values):
+ * a block read from the sequence of a shard is only used on that shard. Without a shard the generator itself is used.
+ * With {@code shard_in_id=false} (the answers, found through their topic) the ids are the plain sequence values,
+ * unique within their shard.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+	public static final String SHARD_IN_ID = "shard_in_id";
+
+	private final SequenceStyleGenerator[] shards = new SequenceStyleGenerator[ShardContext.MAX_SHARDS];
+	private boolean shardInId;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		super.configure(type, params, serviceRegistry);
+		shardInId = ConfigurationHelper.getBoolean(SHARD_IN_ID, params, true);
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new SequenceStyleGenerator();
+			shards[i].configure(type, params, serviceRegistry);
+		}
+	}
+
+	//the same sequence for all of them, registered once; each one still needs its SQL
+	@Override
+	public void registerExportables(Database database) {
+		super.registerExportables(database);
+		for (SequenceStyleGenerator shard : shards) {
+			shard.registerExportables(database);
+		}
+	}
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) {
+		Integer shard = ShardContext.current();
+		if (shard == null) {
+			return super.generate(session, object);
+		}
+		long value = ((Number) shards[shard].generate(session, object)).longValue();
+		return shardInId ? value * ShardContext.MAX_SHARDS + shard : value;
+	}
+}
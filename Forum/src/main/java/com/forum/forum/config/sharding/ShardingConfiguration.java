@@ -0,0 +1,58 @@
+package com.forum.forum.config.sharding;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured DataSource when {@code forum.datasource.shard.urls} is set: one pool per url,
+ * the connections routed by the ShardContext (see TopicShards for which course and topic goes where).
+ * 
+ * Every shard holds the whole schema, migrated here by Flyway before Hibernate starts. Topics, their answers
+ * and their counters live on the shard of their course; everything else (users, profiles, courses, revoked tokens)
+ * is read and written on shard 0, and the reference rows the topics point to (users and courses) must exist
+ * on every shard, as the migrations seed them. Exclusive with the read replicas.
+ */
+@Configuration
+@ConditionalOnProperty("forum.datasource.shard.urls")
+public class ShardingConfiguration {
+
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties,
+			@Value("${forum.datasource.shard.urls}") List<String> urls,
+			@Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+			@Value("${forum.datasource.replica.urls:}") String replicas) {
+		if (!replicas.isEmpty()) {
+			throw new IllegalStateException("forum.datasource.shard.urls and forum.datasource.replica.urls cannot be used together");
+		}
+		if (urls.size() > ShardContext.MAX_SHARDS) {
+			throw new IllegalStateException("At most " + ShardContext.MAX_SHARDS + " shards are supported");
+		}
+		
+		Map<Object, Object> shards = new HashMap<>();
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(urls.get(i)).build();
+			shard.setPoolName("shard-" + i);
+			Flyway.configure().dataSource(shard).locations(locations).load().migrate();
+			shards.put(i, shard);
+		}
+		
+		ShardRoutingDataSource routing = new ShardRoutingDataSource();
+		routing.setTargetDataSources(shards);
+		routing.setDefaultTargetDataSource(shards.get(0));
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+}
@@ -0,0 +1,79 @@
+package com.forum.forum.config.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Statements issued by the current HTTP request: how many, their JDBC time and how often each select repeated.
+ * Bound to the request thread by SqlTracingFilter (and to the pool threads working for the request, see {@link #propagate})
+ * and fed by SqlTracingListener.
+ */
+public class SqlTrace {
+
+	private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+
+	private int statements;
+	private long millis;
+	private final Map<String, Integer> selects = new HashMap<>();
+
+	static void bind(SqlTrace trace) {
+		CURRENT.set(trace);
+	}
+
+	//null outside of a request (scheduled jobs, async threads)
+	static SqlTrace current() {
+		return CURRENT.get();
+	}
+
+	static void end() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * The task with the trace of the calling thread, for work the request hands to a pool
+	 * (e.g. the password verification of the login): its statements count for the request.
+	 */
+	public static <T> Supplier<T> propagate(Supplier<T> task) {
+		SqlTrace trace = current();
+		if (trace == null) {
+			return task;
+		}
+		return () -> {
+			SqlTrace previous = CURRENT.get();
+			CURRENT.set(trace);
+			try {
+				return task.get();
+			} finally {
+				if (previous == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(previous);
+				}
+			}
+		};
+	}
+
+	//synchronized: a pool thread may record while the request thread still runs
+	synchronized void record(String sql, long elapsed, boolean batch) {
+		statements++;
+		millis += elapsed;
+		//a N+1 is the same select again and again; batched inserts and sequence calls repeat on purpose
+		if (!batch && sql.regionMatches(true, 0, "select", 0, 6)) {
+			selects.merge(sql, 1, Integer::sum);
+		}
+	}
+
+	//the select executed the most times, null when there was none
+	synchronized Map.Entry<String, Integer> mostRepeated() {
+		return selects.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+	}
+
+	public synchronized int getStatements() {
+		return statements;
+	}
+
+	public synchronized long getMillis() {
+		return millis;
+	}
+}
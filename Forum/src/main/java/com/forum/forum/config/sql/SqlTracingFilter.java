@@ -0,0 +1,117 @@
+package com.forum.forum.config.sql;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the statements and the JDBC time of each request and warns when an endpoint goes over its query budget
+ * ({@code forum.sql.budgets}, by method and mapping pattern, e.g. {@code PUT /topic/{id}=2}, else by pattern alone,
+ * e.g. {@code /topic/{id}=4}; {@code forum.sql.budget} for the others)
+ * or repeats a select {@code forum.sql.repeat-threshold} times, the usual shape of a N+1.
+ * 
+ * Metrics: forum.http.sql.statements and forum.http.sql.budget.exceeded, tagged by method and mapping pattern.
+ */
+@Component
+@ConditionalOnProperty(value = "forum.sql.tracing.enabled", matchIfMissing = true)
+//before the security filters, the token authentication queries count too; the login queries run on the
+//PasswordVerificationExecutor pool, which carries the trace of the request (SqlTrace.propagate)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlTracingFilter extends OncePerRequestFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SqlTracingFilter.class);
+	private static final String TRACE = SqlTracingFilter.class.getName() + ".TRACE";
+
+	private final MeterRegistry registry;
+	private final int defaultBudget;
+	private final int repeatThreshold;
+	private final Map<String, Integer> budgets = new HashMap<>();
+
+	public SqlTracingFilter(MeterRegistry registry,
+			@Value("${forum.sql.budget:20}") int defaultBudget,
+			@Value("${forum.sql.budgets:}") List<String> budgets,
+			@Value("${forum.sql.repeat-threshold:5}") int repeatThreshold) {
+		this.registry = registry;
+		this.defaultBudget = defaultBudget;
+		this.repeatThreshold = repeatThreshold;
+		//pattern=budget, the pattern itself has no '='
+		for (String budget : budgets) {
+			int separator = budget.lastIndexOf('=');
+			if (separator < 1) {
+				throw new IllegalArgumentException("forum.sql.budgets expects pattern=budget entries, got: " + budget);
+			}
+			this.budgets.put(budget.substring(0, separator).trim(), Integer.valueOf(budget.substring(separator + 1).trim()));
+		}
+	}
+
+	//an async request (e.g. the login) keeps its trace across its dispatches and is inspected after the last one
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		SqlTrace trace = (SqlTrace) request.getAttribute(TRACE);
+		if (trace == null) {
+			trace = new SqlTrace();
+			request.setAttribute(TRACE, trace);
+		}
+		SqlTrace.bind(trace);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			SqlTrace.end();
+			if (!isAsyncStarted(request)) {
+				inspect(request, trace);
+			}
+		}
+	}
+
+	private void inspect(HttpServletRequest request, SqlTrace trace) {
+		//set by the DispatcherServlet once the handler is found; requests without a handler are not measured
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (pattern == null || trace.getStatements() == 0) {
+			return;
+		}
+		String uri = pattern.toString();
+		String method = request.getMethod();
+		DistributionSummary.builder("forum.http.sql.statements").tag("method", method).tag("uri", uri).register(registry)
+				.record(trace.getStatements());
+		
+		Integer budget = budgets.get(method + " " + uri);
+		if (budget == null) {
+			budget = budgets.getOrDefault(uri, defaultBudget);
+		}
+		if (trace.getStatements() > budget) {
+			Counter.builder("forum.http.sql.budget.exceeded").tag("method", method).tag("uri", uri).register(registry).increment();
+			LOGGER.warn("{} {} issued {} statements (budget {}) in {} ms of JDBC", request.getMethod(), uri,
+					trace.getStatements(), budget, trace.getMillis());
+		}
+		Map.Entry<String, Integer> repeated = trace.mostRepeated();
+		if (repeated != null && repeated.getValue() >= repeatThreshold) {
+			LOGGER.warn("Possible N+1 in {} {}: {} times {}", request.getMethod(), uri, repeated.getValue(), repeated.getKey());
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.forum.forum.config.sql;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Called after every JDBC execution (see TracingDataSourcePostProcessor): adds it to the SqlTrace of the request
+ * and logs a sample ({@code forum.sql.slow-sample-rate}) of the statements slower than {@code forum.sql.slow-threshold} ms.
+ * The log is written by a single thread behind a bounded queue; when the queue is full the entry is dropped,
+ * the request never waits for the logger.
+ */
+@Component
+@ConditionalOnProperty(value = "forum.sql.tracing.enabled", matchIfMissing = true)
+public class SqlTracingListener implements QueryExecutionListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("com.forum.forum.sql.slow");
+
+	private final long slowThreshold;
+	private final double sampleRate;
+	private final ThreadPoolExecutor logger;
+
+	public SqlTracingListener(@Value("${forum.sql.slow-threshold:100}") long slowThreshold,
+			@Value("${forum.sql.slow-sample-rate:0.1}") double sampleRate,
+			@Value("${forum.sql.slow-queue-size:1000}") int queueSize) {
+		this.slowThreshold = slowThreshold;
+		this.sampleRate = sampleRate;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-sql-log-");
+		threadFactory.setDaemon(true);
+		this.logger = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+				threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+		String sql = queries.size() == 1 ? queries.get(0).getQuery()
+				: queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+		long elapsed = execution.getElapsedTime();
+		
+		SqlTrace trace = SqlTrace.current();
+		if (trace != null) {
+			trace.record(sql, elapsed, execution.isBatch());
+		}
+		if (elapsed >= slowThreshold && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			//only the statement: the parameters may carry personal data (e-mails, password hashes)
+			int batchSize = execution.isBatch() ? execution.getBatchSize() : 1;
+			logger.execute(() -> LOGGER.warn("Slow statement: {} ms, batch of {}: {}", elapsed, batchSize, sql));
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		logger.shutdown();
+	}
+}
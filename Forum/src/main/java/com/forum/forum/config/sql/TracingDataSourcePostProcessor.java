@@ -0,0 +1,36 @@
+package com.forum.forum.config.sql;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the "dataSource" bean (the auto-configured pool, or the replica/shard routing of their configurations)
+ * in a datasource-proxy that reports every execution to SqlTracingListener.
+ * Replaces hibernate.show_sql, which printed every statement synchronously to stdout.
+ */
+@Component
+@ConditionalOnProperty(value = "forum.sql.tracing.enabled", matchIfMissing = true)
+public class TracingDataSourcePostProcessor implements BeanPostProcessor {
+
+	//looked up lazily: a post processor must not create its dependencies before the other beans
+	private final ObjectProvider<SqlTracingListener> listener;
+
+	public TracingDataSourcePostProcessor(ObjectProvider<SqlTracingListener> listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!"dataSource".equals(beanName) || !(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+			return bean;
+		}
+		return ProxyDataSourceBuilder.create((DataSource) bean).name("forum").listener(listener.getObject()).build();
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.forum.forum.config.security.AuthenticatedUser;
 import com.forum.forum.model.User;
 
 import springfox.documentation.builders.ParameterBuilder;
@@ -24,7 +25,7 @@ public class SwaggerConfiguration {
                 .apis(RequestHandlerSelectors.basePackage("com.forum.forum"))
                 .paths(PathSelectors.ant("/**"))
                 .build()
-                .ignoredParameterTypes(User.class)
+                .ignoredParameterTypes(User.class, AuthenticatedUser.class)
                 .globalOperationParameters(
                         Arrays.asList(
                                 	new ParameterBuilder()
@@ -0,0 +1,28 @@
+package com.forum.forum.config.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class AfterCommit {
+
+	private AfterCommit() {}
+
+	/**
+	 * Runs the action once the current transaction commits (and never if it rolls back),
+	 * or right away when there is no transaction.
+	 * Used by the in-memory structures that mirror the database, so a concurrent read
+	 * cannot see them ahead of the rows.
+	 */
+	public static void run(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.forum.forum.controller;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import javax.transaction.Transactional;
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.forum.forum.config.cache.TopicCacheEvictor;
+import com.forum.forum.config.security.AuthenticatedUser;
+import com.forum.forum.controller.dto.AnswerDTO;
+import com.forum.forum.controller.form.AnswerForm;
+import com.forum.forum.model.Answer;
+import com.forum.forum.model.Topic;
+import com.forum.forum.model.TopicStatus;
+import com.forum.forum.repository.AnswerRepository;
+import com.forum.forum.repository.TopicRepository;
+import com.forum.forum.repository.UserRepository;
+import com.forum.forum.service.TopicShards;
+import com.forum.forum.service.TopicStatistics;
+
+@RestController
+@RequestMapping("/topic/{topicId}/answers")
+public class AnswerController {
+
+	@Autowired
+	private AnswerRepository answerRepository;
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private TopicStatistics topicStatistics;
+	@Autowired
+	private TopicCacheEvictor topicCacheEvictor;
+	@Autowired
+	private TopicShards topicShards;
+
+	@GetMapping
+	public ResponseEntity<Slice<AnswerDTO>> list(@PathVariable Long topicId,
+			@PageableDefault(sort = "id", direction = Direction.ASC, page = 0, size = 20) Pageable pageable) {
+		//the answers live on the shard of their topic
+		return topicShards.on(topicShards.ofTopic(topicId), () -> listOnShard(topicId, pageable));
+	}
+
+	private ResponseEntity<Slice<AnswerDTO>> listOnShard(Long topicId, Pageable pageable) {
+		Slice<Answer> answers = answerRepository.findByTopicId(topicId, pageable);
+		//an empty slice is either a topic without answers or a missing topic
+		if (!answers.hasContent() && !topicRepository.existsById(topicId)) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(answers.map(AnswerDTO::new));
+	}
+
+	@PostMapping
+	@Transactional
+	public ResponseEntity<AnswerDTO> save(@PathVariable Long topicId, @RequestBody @Valid AnswerForm form,
+			@AuthenticationPrincipal AuthenticatedUser user, UriComponentsBuilder uriBuilder) {
+		return topicShards.on(topicShards.ofTopic(topicId), () -> saveOnShard(topicId, form, user, uriBuilder));
+	}
+
+	private ResponseEntity<AnswerDTO> saveOnShard(Long topicId, AnswerForm form, AuthenticatedUser user, UriComponentsBuilder uriBuilder) {
+		Optional<Topic> optional = topicRepository.findById(topicId);
+		if (!optional.isPresent()) {
+			return ResponseEntity.notFound().build();
+		}
+		Topic topic = optional.get();
+		if (topic.getStatus() == TopicStatus.CLOSED) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+		
+		Answer answer = form.toAnswer(topic, userRepository.getOne(user.getId()));
+		answerRepository.save(answer);
+		//counter, last activity and first answer status are updated in the database, not from the loaded topic
+		topicRepository.answerAdded(topicId, answer.getCreationDate());
+		if (topicRepository.changeStatus(topicId, TopicStatus.NOT_ANSWERED, TopicStatus.NOT_SOLVED, answer.getCreationDate()) == 1) {
+			topicStatistics.statusChanged(topic, TopicStatus.NOT_ANSWERED, TopicStatus.NOT_SOLVED);
+		}
+		topicCacheEvictor.topicUpdated(topic);
+		
+		URI uri = uriBuilder.path("/topic/{id}").buildAndExpand(topicId).toUri();
+		return ResponseEntity.created(uri).body(new AnswerDTO(answer, user.getName()));
+	}
+
+	//only the author of the topic marks its resolved answer; a previously resolved answer is unmarked
+	@PutMapping("/{answerId}/resolve")
+	@Transactional
+	public ResponseEntity<AnswerDTO> resolve(@PathVariable Long topicId, @PathVariable Long answerId,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		return topicShards.on(topicShards.ofTopic(topicId), () -> resolveOnShard(topicId, answerId, user));
+	}
+
+	private ResponseEntity<AnswerDTO> resolveOnShard(Long topicId, Long answerId, AuthenticatedUser user) {
+		//the topic is loaded first: a deleted topic is not found, its answers are not either
+		Optional<Topic> optional = topicRepository.findById(topicId);
+		Optional<Answer> answerOptional = optional.isPresent() ? answerRepository.findById(answerId) : Optional.empty();
+		if (!answerOptional.isPresent() || !answerOptional.get().getTopic().getId().equals(topicId)) {
+			return ResponseEntity.notFound().build();
+		}
+		Topic topic = optional.get();
+		Answer answer = answerOptional.get();
+		if (topic.getUser() == null || !topic.getUser().getId().equals(user.getId())) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		if (topic.getStatus() == TopicStatus.CLOSED) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+		
+		answerRepository.unresolveOthers(topicId, answerId);
+		answer.setResolved(true);
+		TopicStatus from = topic.getStatus();
+		if (from != TopicStatus.SOLVED
+				&& topicRepository.changeStatus(topicId, from, TopicStatus.SOLVED, LocalDateTime.now()) == 1) {
+			topicStatistics.statusChanged(topic, from, TopicStatus.SOLVED);
+		}
+		topicCacheEvictor.topicUpdated(topic);
+		return ResponseEntity.ok(new AnswerDTO(answer));
+	}
+}
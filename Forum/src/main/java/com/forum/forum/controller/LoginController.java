@@ -1,50 +1,100 @@
 package com.forum.forum.controller;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.forum.forum.config.security.AuthenticatedUser;
+import com.forum.forum.config.security.PasswordVerificationExecutor;
+import com.forum.forum.config.security.TokenClaims;
+import com.forum.forum.config.security.TokenDenylist;
 import com.forum.forum.config.security.TokenService;
 import com.forum.forum.controller.dto.TokenDTO;
 import com.forum.forum.controller.form.LoginForm;
+import com.forum.forum.controller.form.RevokeTokenForm;
 
 @RestController
 @RequestMapping("/auth")
 public class LoginController {
 	
+	private static final String BEARER = "Bearer ";
+	
 	@Autowired
 	private AuthenticationManager authManager;
 	
 	@Autowired
 	private TokenService tokenService;
+	
+	@Autowired
+	private PasswordVerificationExecutor passwordVerification;
+	
+	@Autowired
+	private TokenDenylist tokenDenylist;
 
+	//The response is completed asynchronously: the servlet thread is released while BCrypt runs on its own pool
 	@PostMapping
-	public ResponseEntity<TokenDTO> authenticat(@RequestBody @Valid LoginForm form){
+	public CompletableFuture<ResponseEntity<TokenDTO>> authenticat(@RequestBody @Valid LoginForm form){
 		UsernamePasswordAuthenticationToken login = form.toUser();
 		
-		//we need to handle the error in case the login does not exist.
 		try {
 			//When Spring calls this method, this method will call the Service that will call the Repository, 
 			// that will validate the User and password;
-			Authentication authentication = authManager.authenticate(login);
-			
-			//If the authentication worked, we must return the token, from the JJWT library
-			// but the the token generation will be absctracted from controller, using the tokenService!
-			String token = tokenService.tokenGenerator(authentication);
-			
-			return ResponseEntity.ok(new TokenDTO(token, "Bearer"));
-		} catch (AuthenticationException e) {
+			return passwordVerification.submit(() -> authManager.authenticate(login))
+					//If the authentication worked, we must return the token, from the JJWT library
+					// but the the token generation will be absctracted from controller, using the tokenService!
+					.thenApply(authentication -> ResponseEntity.ok(new TokenDTO(tokenService.tokenGenerator(authentication), "Bearer")))
+					//we need to handle the error in case the login does not exist.
+					.exceptionally(e -> {
+						if (e.getCause() instanceof AuthenticationException) {
+							return ResponseEntity.badRequest().build();
+						}
+						throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+					});
+		} catch (RejectedExecutionException e) {
+			//too many logins waiting for verification
+			return CompletableFuture.completedFuture(
+					ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build());
+		}
+	}
+	
+	//Revokes the token of the request
+	@PostMapping("/logout")
+	public ResponseEntity<?> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+		TokenClaims claims = tokenService.verify(authorization.substring(BEARER.length()));
+		if (claims == null) {
 			return ResponseEntity.badRequest().build();
 		}
-		
+		tokenDenylist.revoke(claims);
+		return ResponseEntity.noContent().build();
+	}
+	
+	//Revokes another token of the same user (e.g. of a lost device)
+	@PostMapping("/revoke")
+	public ResponseEntity<?> revoke(@RequestBody @Valid RevokeTokenForm form, @AuthenticationPrincipal AuthenticatedUser user) {
+		TokenClaims claims = tokenService.verify(form.getToken());
+		if (claims == null) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (!claims.getUserId().equals(user.getId())) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		tokenDenylist.revoke(claims);
+		return ResponseEntity.noContent().build();
 	}
 }
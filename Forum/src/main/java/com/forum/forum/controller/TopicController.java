@@ -1,19 +1,37 @@
 package com.forum.forum.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import javax.transaction.Transactional;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,81 +41,323 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.forum.forum.config.cache.TopicCacheEvictor;
+import com.forum.forum.config.cache.TopicListKey;
+import com.forum.forum.config.cache.TopicVersions;
+import com.forum.forum.config.datasource.ReplicaRoutingDataSource;
+import com.forum.forum.config.security.AuthenticatedUser;
+import com.forum.forum.controller.dto.BulkTopicResultDTO;
+import com.forum.forum.controller.dto.TopicCursorDTO;
 import com.forum.forum.controller.dto.TopicDTO;
 import com.forum.forum.controller.dto.TopicDetailDTO;
+import com.forum.forum.controller.dto.TopicStatsDTO;
 import com.forum.forum.controller.form.TopicForm;
 import com.forum.forum.controller.form.UpdateTopicForm;
+import com.forum.forum.model.Course;
 import com.forum.forum.model.Topic;
-import com.forum.forum.repository.CourseRepository;
 import com.forum.forum.repository.TopicRepository;
+import com.forum.forum.repository.TopicState;
+import com.forum.forum.repository.TopicSummary;
+import com.forum.forum.repository.UserRepository;
+import com.forum.forum.service.CourseDictionary;
+import com.forum.forum.service.TopicCounters;
+import com.forum.forum.service.TopicImporter;
+import com.forum.forum.service.TopicSearchIndex;
+import com.forum.forum.service.TopicShards;
+import com.forum.forum.service.TopicStatistics;
 
 @RestController
 @RequestMapping("/topic")
 public class TopicController {
 	
+	private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+	private static final String NDJSON = "application/x-ndjson";
+	
 	@Autowired
 	private TopicRepository topicRepository;
 	@Autowired
-	private CourseRepository courseRepository;
+	private CourseDictionary courseDictionary;
+	@Autowired
+	private TopicCacheEvictor topicCacheEvictor;
+	@Autowired
+	private TopicVersions topicVersions;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private TopicSearchIndex topicSearchIndex;
+	@Autowired
+	private TopicCounters topicCounters;
+	@Autowired
+	private TopicStatistics topicStatistics;
+	@Autowired
+	private TopicImporter topicImporter;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private TopicShards topicShards;
 
+	//Conditional GET: a client holding the ETag of the page (see TopicVersions) gets a 304 without the body.
+	//"slice=true" returns only the "has next" flag, a Page gets its total from the topic counters (no count(*)).
+	//read-only transactions go to a replica when replicas are configured (see ReplicaRoutingDataSource)
 	@GetMapping
-	@Cacheable(value = "listOfTopics")
-	public Page<TopicDTO> list(@RequestParam(required = false) String courseName,
-			@PageableDefault(sort = "id", direction = Direction.DESC, page = 0, size = 10) Pageable pageable){
+	@Transactional(readOnly = true)
+	public ResponseEntity<Slice<TopicDTO>> list(@RequestParam(required = false) String courseName,
+			@RequestParam(defaultValue = "false") boolean slice,
+			@PageableDefault(sort = "id", direction = Direction.DESC, page = 0, size = 10) Pageable pageable,
+			WebRequest request){
+		TopicListKey key = new TopicListKey(courseName, pageable, slice);
+		//the shards are only merged on "id DESC"
+		if (courseName == null && topicShards.isSharded() && !key.isDefaultOrder()) {
+			return ResponseEntity.badRequest().build();
+		}
+		
+		//the cache is shared: right after a write it is filled from the primary, not from a lagging replica
+		Slice<TopicDTO> topics = topicCacheEvictor.get(TopicCacheEvictor.LIST_OF_TOPICS, key,
+				() -> ReplicaRoutingDataSource.forSharedCache(() -> loadList(courseName, slice, pageable)));
+		if (request.checkNotModified(topicVersions.list(topics))) {
+			//the 304 and its headers are already set
+			return null;
+		}
+		return ResponseEntity.ok(topics);
+	}
+	
+	private Slice<TopicDTO> loadList(String courseName, boolean slice, Pageable pageable) {
+		Long courseId = null;
+		Slice<TopicSummary> summaries;
+		if (courseName != null) {
+			Course course = courseDictionary.byName(courseName);
+			if (course == null) {
+				return Page.<TopicDTO>empty(pageable);
+			}
+			courseId = course.getId();
+			summaries = topicShards.on(topicShards.ofCourse(courseId), () -> topicRepository.findSlicedByCourseId(course.getId(), pageable));
+		} else {
+			summaries = topicShards.isSharded() ? scatter(pageable) : topicRepository.findSlicedBy(pageable);
+		}
+		return slice ? TopicDTO.fromSummaries(summaries) : TopicDTO.fromSummaries(summaries, topicCounters.total(courseId));
+	}
+	
+	//Unfiltered list over the shards: the first (page + 1) * size topics of each shard, merged on id DESC.
+	// Deep pages read more rows of every shard, the cursor mode below does not.
+	private Slice<TopicSummary> scatter(Pageable pageable) {
+		int offset = (int) pageable.getOffset();
+		int end = offset + pageable.getPageSize();
+		List<TopicSummary> merged = TopicShards.mergeByIdDesc(topicShards.onEach(() -> 
+				topicRepository.findSummariesByIdLessThanOrderByIdDesc(Long.MAX_VALUE, PageRequest.of(0, end + 1))), end + 1);
+		List<TopicSummary> content = merged.subList(Math.min(offset, merged.size()), Math.min(end, merged.size()));
+		return new SliceImpl<>(content, pageable, merged.size() > end);
+	}
+	
+	//Cursor mode: "?after=<cursor>&size=N" ("after=" for the first page). The cost of a page does not depend on how deep it is.
+	@GetMapping(params = "after")
+	public ResponseEntity<TopicCursorDTO> listAfter(@RequestParam(required = false) String courseName,
+			@RequestParam String after, @RequestParam(defaultValue = "10") int size) {
+		Long afterId;
+		try {
+			afterId = TopicCursorDTO.decode(after);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		
+		//one extra row tells us if there is a next page without counting
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<TopicSummary> topics;
 		if (courseName == null) {
-			Page<Topic> topics = topicRepository.findAll(pageable);
-			return TopicDTO.toTopic(topics);
+			//every shard gives its next size + 1 topics, the merge keeps the first size + 1
+			topics = TopicShards.mergeByIdDesc(topicShards.onEach(() -> 
+					topicRepository.findSummariesByIdLessThanOrderByIdDesc(afterId, limit)), size + 1);
 		} else {
-			return TopicDTO.toTopic(topicRepository.findByCourseName(courseName, pageable));
+			Course course = courseDictionary.byName(courseName);
+			topics = course == null ? Collections.emptyList() : topicShards.on(topicShards.ofCourse(course.getId()), () -> 
+					topicRepository.findSummariesByCourseIdAndIdLessThanOrderByIdDesc(course.getId(), afterId, limit));
+		}
+		
+		String next = null;
+		if (topics.size() > size) {
+			topics = topics.subList(0, size);
+			next = TopicCursorDTO.encode(topics.get(size - 1).getId());
+		}
+		return ResponseEntity.ok(new TopicCursorDTO(topics.stream().map(TopicDTO::new).collect(Collectors.toList()), next));
+	}
+	
+	//Full-text search over title and post, ranked by relevance
+	@GetMapping("/search")
+	public ResponseEntity<Page<TopicDTO>> search(@RequestParam String q, @PageableDefault(size = 10) Pageable pageable) {
+		if (q.trim().isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		Page<Long> ids = topicSearchIndex.search(q, pageable);
+		if (ids.getContent().isEmpty()) {
+			return ResponseEntity.ok(new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements()));
+		}
+		Map<Long, TopicDTO> topics = new HashMap<>();
+		ids.getContent().stream().collect(Collectors.groupingBy(topicShards::ofTopic)).forEach((shard, shardIds) -> 
+				topicShards.on(shard, () -> topicRepository.findSummariesByIdIn(shardIds))
+						.forEach(topic -> topics.put(topic.getId(), new TopicDTO(topic))));
+		List<TopicDTO> ranked = ids.getContent().stream().map(topics::get).filter(Objects::nonNull).collect(Collectors.toList());
+		return ResponseEntity.ok(new PageImpl<>(ranked, pageable, ids.getTotalElements()));
+	}
+	
+	//Counts by course and status, read from memory whatever the size of the table
+	@GetMapping("/stats")
+	public TopicStatsDTO stats() {
+		return new TopicStatsDTO(topicStatistics.totals(), topicStatistics.byCourse(), courseDictionary);
+	}
+	
+	//Newline-delimited JSON export of every topic (or of one course), written while the rows are scrolled,
+	// so the heap used does not depend on the number of topics
+	@GetMapping(value = "/export", produces = NDJSON)
+	@Transactional(readOnly = true)
+	public void export(@RequestParam(required = false) String courseName, HttpServletResponse response) throws IOException {
+		response.setContentType(NDJSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		ObjectWriter writer = objectMapper.writerFor(TopicDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		
+		Course course = courseName == null ? null : courseDictionary.byName(courseName);
+		if (courseName != null && course == null) {
+			return;
+		}
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			generator.setRootValueSeparator(null);
+			if (course != null) {
+				topicShards.on(topicShards.ofCourse(course.getId()), () -> write(topicRepository.streamByCourseId(course.getId()), writer, generator));
+			} else {
+				//sharded: one shard after the other, each in id order
+				for (int shard = 0; shard < topicShards.count(); shard++) {
+					topicShards.on(shard, () -> write(topicRepository.streamAllBy(), writer, generator));
+				}
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	private static Void write(Stream<TopicSummary> topics, ObjectWriter writer, JsonGenerator generator) {
+		try (Stream<TopicSummary> closing = topics) {
+			Iterator<TopicSummary> iterator = closing.iterator();
+			while (iterator.hasNext()) {
+				writer.writeValue(generator, new TopicDTO(iterator.next()));
+				generator.writeRaw('\n');
+			}
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 	
 	@PostMapping
 	@Transactional
-	@CacheEvict(value = "listOfTopics", allEntries = true)
-	public ResponseEntity<TopicDTO> save(@RequestBody @Valid TopicForm form, UriComponentsBuilder uriBuilder) {
-		Topic topic = form.toTopic(courseRepository);
-		topicRepository.save(topic);
+	public ResponseEntity<TopicDTO> save(@RequestBody @Valid TopicForm form, @AuthenticationPrincipal AuthenticatedUser user,
+			UriComponentsBuilder uriBuilder) {
+		Topic topic = form.toTopic(courseDictionary);
+		topicShards.on(topicShards.ofCourse(topic.getCurso() == null ? null : topic.getCurso().getId()), () -> {
+			topic.setUser(userRepository.getOne(user.getId()));
+			topicRepository.save(topic);
+			topicCounters.topicAdded(topic);
+			topicStatistics.topicCreated(topic);
+			topicCacheEvictor.topicCreated(topic);
+			topicSearchIndex.topicSaved(topic);
+			return topic;
+		});
 		
 		URI uri = uriBuilder.path("/topic/{id}").buildAndExpand(topic.getId()).toUri();
 		
 		return ResponseEntity.created(uri).body(new TopicDTO(topic));
 	}
 	
+	//JSON array or NDJSON of TopicForm; invalid items are reported by index and do not stop the others
+	@PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, NDJSON })
+	public ResponseEntity<List<BulkTopicResultDTO>> saveAll(HttpServletRequest request,
+			@AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+		return ResponseEntity.ok(topicImporter.importTopics(request.getInputStream(), user.getId()));
+	}
+	
 	@GetMapping("/{id}")
-	public ResponseEntity<TopicDetailDTO> detail(@PathVariable Long id) {
-		Optional<Topic> topic = topicRepository.findById(id);
-		if(topic.isPresent()) {
-			TopicDetailDTO details = new TopicDetailDTO(topic.get()); 
-			return ResponseEntity.ok(details);
+	@Transactional(readOnly = true)
+	public ResponseEntity<TopicDetailDTO> detail(@PathVariable Long id, WebRequest request) {
+		//a missing topic is cached too (as null)
+		TopicDetailDTO details = topicCacheEvictor.get(TopicCacheEvictor.TOPIC_DETAILS, id,
+				() -> ReplicaRoutingDataSource.forSharedCache(() -> detailOnShard(id)).orElse(null));
+		if (details == null) {
+			return ResponseEntity.notFound().build();
+		}
+		if (request.checkNotModified(topicVersions.topic(details))) {
+			return null;
 		}
-		return ResponseEntity.notFound().build();		
+		return ResponseEntity.ok(details);
+	}
+	
+	private Optional<TopicDetailDTO> detailOnShard(Long id) {
+		return topicShards.on(topicShards.ofTopic(id), () -> topicRepository.findDetailById(id).map(TopicDetailDTO::new));
 	}
 	
 	@PutMapping("/{id}")
 	@Transactional
-	@CacheEvict(value = "listOfTopics", allEntries = true)
 	public ResponseEntity<TopicDTO> update(@PathVariable Long id, @RequestBody @Valid UpdateTopicForm form){
-		Optional<Topic> optional = topicRepository.findById(id);
-		if(optional.isPresent()) {
-			Topic topic = form.toTopic(id, topicRepository);
-			return ResponseEntity.ok(new TopicDTO(topic));
+		return topicShards.on(topicShards.ofTopic(id), () -> updateOnShard(id, form));
+	}
+	
+	//One statement when it succeeds: the topic is only read to tell a missing topic from another version,
+	// or to answer with the new version of an edit without one
+	private ResponseEntity<TopicDTO> updateOnShard(Long id, UpdateTopicForm form) {
+		TopicDTO updated;
+		if (form.getVersion() != null) {
+			if (topicRepository.update(id, form.getVersion(), form.getTitle(), form.getPost()) == 0) {
+				return topicRepository.findStateById(id).isPresent()
+						? ResponseEntity.status(HttpStatus.CONFLICT).build() : ResponseEntity.notFound().build();
+			}
+			updated = new TopicDTO(id, form.getTitle(), form.getPost(), form.getVersion() + 1);
+		} else {
+			Optional<TopicState> state = topicRepository.update(id, form.getTitle(), form.getPost()) == 0
+					? Optional.empty() : topicRepository.findStateById(id);
+			if (!state.isPresent()) {
+				return ResponseEntity.notFound().build();
+			}
+			updated = new TopicDTO(state.get());
 		}
-		return ResponseEntity.notFound().build();
+		topicCacheEvictor.topicEdited(id);
+		topicSearchIndex.topicSaved(id, form.getTitle(), form.getPost());
+		return ResponseEntity.ok(updated);
 	}
 	
 	@DeleteMapping("{id}")
 	@Transactional
-	@CacheEvict(value = "listOfTopics", allEntries = true)
-	public ResponseEntity<?> delete(@PathVariable long id){
-		Optional<Topic> optional = topicRepository.findById(id);
-		if(optional.isPresent()) {
-			topicRepository.deleteById(id);
-			return ResponseEntity.ok().build();
-		}
-		return ResponseEntity.notFound().build();
+	public ResponseEntity<?> delete(@PathVariable long id, @RequestParam(required = false) Long version){
+		return topicShards.on(topicShards.ofTopic(id), () -> deleteOnShard(id, version));
+	}
+	
+	private ResponseEntity<?> deleteOnShard(long id, Long version) {
+		//the course and status are needed by the counters and statistics: the one read a delete cannot skip
+		Optional<TopicState> state = topicRepository.findStateById(id);
+		if (!state.isPresent()) {
+			return ResponseEntity.notFound().build();
+		}
+		Long current = state.get().getVersion();
+		if ((version != null && !version.equals(current)) || topicRepository.delete(id, current) == 0) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+		Long courseId = state.get().getCourseId();
+		String courseName = courseName(courseId);
+		topicCounters.topicRemoved(courseId);
+		topicStatistics.topicDeleted(courseId, state.get().getStatus());
+		topicCacheEvictor.topicDeleted(id, courseName);
+		topicSearchIndex.topicDeleted(id);
+		return ResponseEntity.ok().build();
+	}
+	
+	private String courseName(Long courseId) {
+		Course course = courseId == null ? null : courseDictionary.byId(courseId);
+		return course == null ? null : course.getName();
 	}
 	
 }
@@ -10,12 +10,19 @@ public class AnswerDTO {
 	private String post;
 	private LocalDateTime creationDate;
 	private String userName;
+	private Boolean resolved;
 	
 	public AnswerDTO(Answer answer) {
+		this(answer, answer.getUser().getName());
+	}
+	
+	//the author name is known by the caller (e.g. the authenticated user), the User is not loaded
+	public AnswerDTO(Answer answer, String userName) {
 		this.id = answer.getId();
 		this.post = answer.getPost();
 		this.creationDate = answer.getCreationDate();
-		this.userName = answer.getUser().getName();
+		this.userName = userName;
+		this.resolved = answer.getResolved();
 	}
 
 	public Long getId() {
@@ -33,5 +40,9 @@ public class AnswerDTO {
 	public String getUserName() {
 		return userName;
 	}
+
+	public Boolean getResolved() {
+		return resolved;
+	}
 	
 }
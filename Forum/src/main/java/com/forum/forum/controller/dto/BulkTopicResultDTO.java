@@ -0,0 +1,51 @@
+package com.forum.forum.controller.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+public class BulkTopicResultDTO {
+
+	//FAILED: valid, but its chunk could not be inserted (rolled back)
+	public enum Status { CREATED, INVALID, FAILED }
+
+	private int index;
+	private Status status;
+	private Long id;
+	private List<String> errors;
+
+	private BulkTopicResultDTO(int index, Status status, Long id, List<String> errors) {
+		this.index = index;
+		this.status = status;
+		this.id = id;
+		this.errors = errors;
+	}
+
+	public static BulkTopicResultDTO created(int index, Long id) {
+		return new BulkTopicResultDTO(index, Status.CREATED, id, Collections.emptyList());
+	}
+
+	public static BulkTopicResultDTO invalid(int index, List<String> errors) {
+		return new BulkTopicResultDTO(index, Status.INVALID, null, errors);
+	}
+
+	public static BulkTopicResultDTO failed(int index, String error) {
+		return new BulkTopicResultDTO(index, Status.FAILED, null, Collections.singletonList(error));
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.forum.forum.controller.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of the keyset pagination: the topics and the opaque cursor of the next page
+ * (null when there is nothing after it).
+ */
+public class TopicCursorDTO {
+
+	private List<TopicDTO> content;
+	private String next;
+
+	public TopicCursorDTO(List<TopicDTO> content, String next) {
+		this.content = content;
+		this.next = next;
+	}
+
+	//The cursor is the last id of the page, base64 encoded so clients don't rely on its format
+	public static String encode(Long lastId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	//An empty cursor means "from the newest topic"; an invalid one throws IllegalArgumentException
+	public static Long decode(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return Long.MAX_VALUE;
+		}
+		return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+	}
+
+	public List<TopicDTO> getContent() {
+		return content;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+}
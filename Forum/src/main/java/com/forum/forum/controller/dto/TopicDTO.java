@@ -3,27 +3,58 @@ package com.forum.forum.controller.dto;
 import java.time.LocalDateTime;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
 
 import com.forum.forum.model.Topic;
+import com.forum.forum.repository.TopicSummary;
 
 public class TopicDTO {
 
 	private Long id;
 	private String title, post;
 	private LocalDateTime creationDate;
+	private Integer answerCount;
+	private LocalDateTime lastActivity;
+	private Long version;
 	
 	public TopicDTO(Topic topic) {
 		this.id = topic.getId();
 		this.title = topic.getTitle();
 		this.post = topic.getPost();
 		this.creationDate = topic.getCreationDate();
+		this.answerCount = topic.getAnswerCount();
+		this.lastActivity = topic.getLastActivity();
+		this.version = topic.getVersion();
 	}
 	
-	//Using the map method, for each topic, a "topicDTO" will be created
-	public static Page<TopicDTO> toTopic(Page<Topic> topics) {
+	public TopicDTO(TopicSummary topic) {
+		this.id = topic.getId();
+		this.title = topic.getTitle();
+		this.post = topic.getPost();
+		this.creationDate = topic.getCreationDate();
+		this.answerCount = topic.getAnswerCount();
+		this.lastActivity = topic.getLastActivity();
+		this.version = topic.getVersion();
+	}
+	
+	//an edit answers with what it wrote: the other columns are not read back
+	public TopicDTO(Long id, String title, String post, Long version) {
+		this.id = id;
+		this.title = title;
+		this.post = post;
+		this.version = version;
+	}
+	
+	public static Slice<TopicDTO> fromSummaries(Slice<TopicSummary> topics) {
 		return topics.map(TopicDTO::new);
 	}
 	
+	//A page built from a slice and a total that is known without count(*)
+	public static Page<TopicDTO> fromSummaries(Slice<TopicSummary> topics, long total) {
+		return new PageImpl<>(topics.map(TopicDTO::new).getContent(), topics.getPageable(), total);
+	}
+	
 
 	public Long getId() {
 		return id;
@@ -41,5 +72,17 @@ public class TopicDTO {
 		return creationDate;
 	}
 
+	public Integer getAnswerCount() {
+		return answerCount;
+	}
+
+	public LocalDateTime getLastActivity() {
+		return lastActivity;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
 
 }
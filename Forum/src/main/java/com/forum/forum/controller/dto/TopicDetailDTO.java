@@ -15,6 +15,9 @@ public class TopicDetailDTO {
 	private LocalDateTime creationDate;
 	private String userName;
 	private TopicStatus status;
+	private Integer answerCount;
+	private LocalDateTime lastActivity;
+	private Long version;
 	private List<AnswerDTO> answers;
 	
 	public TopicDetailDTO(Topic topic) {
@@ -22,8 +25,12 @@ public class TopicDetailDTO {
 		this.title = topic.getTitle();
 		this.post = topic.getPost();
 		this.creationDate = topic.getCreationDate();
-		this.userName = topic.getUser().getName();
+		//topics created before the author was recorded have no user
+		this.userName = topic.getUser() == null ? null : topic.getUser().getName();
 		this.status = topic.getStatus();
+		this.answerCount = topic.getAnswerCount();
+		this.lastActivity = topic.getLastActivity();
+		this.version = topic.getVersion();
 		this.answers = new ArrayList<>();
 		this.answers.addAll(topic.getRespostas().stream().map(AnswerDTO::new).collect(Collectors.toList()));
 	}
@@ -52,6 +59,18 @@ public class TopicDetailDTO {
 		return status;
 	}
 
+	public Integer getAnswerCount() {
+		return answerCount;
+	}
+
+	public LocalDateTime getLastActivity() {
+		return lastActivity;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
 	public List<AnswerDTO> getAnswers() {
 		return answers;
 	}
@@ -0,0 +1,88 @@
+package com.forum.forum.controller.dto;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.forum.forum.model.Course;
+import com.forum.forum.model.TopicStatus;
+import com.forum.forum.service.CourseDictionary;
+
+public class TopicStatsDTO {
+
+	private long total;
+	private Map<TopicStatus, Long> byStatus;
+	private List<CourseStatsDTO> courses = new ArrayList<>();
+
+	//counts are indexed by TopicStatus ordinal
+	public TopicStatsDTO(long[] totals, Map<Long, long[]> byCourse, CourseDictionary courseDictionary) {
+		this.byStatus = byStatus(totals);
+		this.total = sum(totals);
+		byCourse.forEach((courseId, counts) -> {
+			Course course = courseDictionary.byId(courseId);
+			courses.add(new CourseStatsDTO(courseId, course == null ? null : course.getName(), sum(counts), byStatus(counts)));
+		});
+	}
+
+	private static Map<TopicStatus, Long> byStatus(long[] counts) {
+		Map<TopicStatus, Long> byStatus = new EnumMap<>(TopicStatus.class);
+		for (TopicStatus status : TopicStatus.values()) {
+			byStatus.put(status, counts[status.ordinal()]);
+		}
+		return byStatus;
+	}
+
+	private static long sum(long[] counts) {
+		long sum = 0;
+		for (long count : counts) {
+			sum += count;
+		}
+		return sum;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public Map<TopicStatus, Long> getByStatus() {
+		return byStatus;
+	}
+
+	public List<CourseStatsDTO> getCourses() {
+		return courses;
+	}
+
+	public static class CourseStatsDTO {
+
+		private Long courseId;
+		private String courseName;
+		private long total;
+		private Map<TopicStatus, Long> byStatus;
+
+		public CourseStatsDTO(Long courseId, String courseName, long total, Map<TopicStatus, Long> byStatus) {
+			this.courseId = courseId;
+			this.courseName = courseName;
+			this.total = total;
+			this.byStatus = byStatus;
+		}
+
+		public Long getCourseId() {
+			return courseId;
+		}
+
+		public String getCourseName() {
+			return courseName;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public Map<TopicStatus, Long> getByStatus() {
+			return byStatus;
+		}
+
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.forum.forum.controller.form;
+
+import javax.validation.constraints.NotEmpty;
+
+import org.hibernate.validator.constraints.Length;
+
+import com.forum.forum.model.Answer;
+import com.forum.forum.model.Topic;
+import com.forum.forum.model.User;
+
+public class AnswerForm {
+
+	@NotEmpty @Length(min = 5)
+	private String post;
+
+	public Answer toAnswer(Topic topic, User user) {
+		return new Answer(post, topic, user);
+	}
+
+	public String getPost() {
+		return post;
+	}
+
+	public void setPost(String post) {
+		this.post = post;
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.forum.forum.controller.form;
+
+import javax.validation.constraints.NotEmpty;
+
+public class RevokeTokenForm {
+
+	@NotEmpty
+	private String token;
+
+	public String getToken() {
+		return token;
+	}
+
+	public void setToken(String token) {
+		this.token = token;
+	}
+
+}
@@ -6,7 +6,7 @@ import org.hibernate.validator.constraints.Length;
 
 import com.forum.forum.model.Course;
 import com.forum.forum.model.Topic;
-import com.forum.forum.repository.CourseRepository;
+import com.forum.forum.service.CourseDictionary;
 import com.sun.istack.NotNull;
 
 public class TopicForm {
@@ -17,8 +17,8 @@ public class TopicForm {
 	@NotNull @NotEmpty @Length(min = 10)
 	private String post;
 	
-	public Topic toTopic(CourseRepository courseRepository) {
-		Course course = courseRepository.findByName(this.courseName);
+	public Topic toTopic(CourseDictionary courseDictionary) {
+		Course course = courseDictionary.byName(this.courseName);
 		Topic topic = new Topic(title, post, course);
 		return topic;
 	}
@@ -4,8 +4,6 @@ import javax.validation.constraints.NotEmpty;
 
 import org.hibernate.validator.constraints.Length;
 
-import com.forum.forum.model.Topic;
-import com.forum.forum.repository.TopicRepository;
 import com.sun.istack.NotNull;
 
 public class UpdateTopicForm {
@@ -16,13 +14,8 @@ public class UpdateTopicForm {
 	@NotNull @NotEmpty @Length(min = 10)
 	private String post;
 	
-	public Topic toTopic(Long id, TopicRepository topicRepository) {
-		Topic topic = topicRepository.getOne(id);
-		
-		topic.setTitle(title);
-		topic.setPost(post);
-		return topic;
-	}
+	//version read by the client; without it the edit overwrites whatever version is current
+	private Long version;
 
 	public String getTitle() {
 		return title;
@@ -40,4 +33,12 @@ public class UpdateTopicForm {
 		this.post = post;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 }
@@ -3,20 +3,32 @@ package com.forum.forum.model;
 import java.time.LocalDateTime;
 
 import javax.persistence.Entity;
-
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
+//the answers of a topic are read by "where topic_id = ? order by id"
+@Table(indexes = @Index(name = "answer_topic_id_id", columnList = "topic_id, id"))
 public class Answer {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_seq")
+	//answer_seq, allocation size 50, one block per shard when sharded (the ids are unique within the shard of the topic)
+	@GenericGenerator(name = "answer_seq", strategy = "com.forum.forum.config.sharding.ShardedSequenceGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "answer_seq"), @Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "shard_in_id", value = "false") })
 	private Long id;
 	private String post;
-	@ManyToOne
+	//lazy: a soft deleted topic cannot be loaded, its answers can (until the purge)
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Topic topic;
 	@ManyToOne
 	private User user;
@@ -1,15 +1,29 @@
 package com.forum.forum.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.forum.forum.service.CourseChangeListener;
+import com.forum.forum.service.ReferenceRowListener;
 
 @Entity
+//second-level cache (ehcache.xml): read on every topic write and list row, rarely changed
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({ CourseChangeListener.class, ReferenceRowListener.class })
 public class Course {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_seq")
+	@SequenceGenerator(name = "course_seq", sequenceName = "course_seq", allocationSize = 50)
 	private Long id;
 	private String name;
 	private String category;
@@ -0,0 +1,43 @@
+package com.forum.forum.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * A revoked token, by its SHA-256 digest, kept until the token would have expired anyway.
+ */
+@Entity
+public class RevokedToken {
+
+	@Id
+	private String digest;
+	//epoch millis
+	private Long expiration;
+
+	/**
+	 * @deprecated hibernat only
+	 */
+	public RevokedToken() {}
+
+	public RevokedToken(String digest, Long expiration) {
+		this.digest = digest;
+		this.expiration = expiration;
+	}
+
+	public String getDigest() {
+		return digest;
+	}
+
+	public void setDigest(String digest) {
+		this.digest = digest;
+	}
+
+	public Long getExpiration() {
+		return expiration;
+	}
+
+	public void setExpiration(Long expiration) {
+		this.expiration = expiration;
+	}
+
+}
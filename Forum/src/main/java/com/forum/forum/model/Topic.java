@@ -10,15 +10,35 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Where;
 
 @Entity
+//the course filter of the list reads "where course_id = ? order by id desc"
+@Table(indexes = { @Index(name = "topic_course_id_id", columnList = "course_id, id"),
+		@Index(name = "topic_creation_date", columnList = "creation_date"),
+		@Index(name = "topic_status", columnList = "status"),
+		@Index(name = "topic_deleted", columnList = "deleted") })
+//Soft delete: every load and query of Topic skips the deleted rows, the TopicPurger removes them later
+@Where(clause = "deleted = false")
 public class Topic {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_seq")
+	//topic_seq, allocation size 50, with the shard in the id when the topics are sharded
+	@GenericGenerator(name = "topic_seq", strategy = "com.forum.forum.config.sharding.ShardedSequenceGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "topic_seq"), @Parameter(name = "increment_size", value = "50") })
 	private Long id;
+	//bumped by the title/post edits (see TopicRepository.update); answers do not conflict with edits
+	@Version
+	private Long version;
 	private String title;
 	private String post;
 	private LocalDateTime creationDate = LocalDateTime.now();
@@ -27,6 +47,12 @@ public class Topic {
 	@Enumerated(EnumType.STRING)
 	private TopicStatus status = TopicStatus.NOT_ANSWERED;
 	
+	//denormalized from the answers, maintained by the answer writes (see TopicRepository)
+	private Integer answerCount = 0;
+	private LocalDateTime lastActivity = creationDate;
+	
+	private Boolean deleted = false;
+	
 	@ManyToOne
 	private User user;
 	@ManyToOne
@@ -79,6 +105,10 @@ public class Topic {
 		this.id = id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	public String getTitle() {
 		return title;
 	}
@@ -111,6 +141,26 @@ public class Topic {
 		this.status = status;
 	}
 
+	public Integer getAnswerCount() {
+		return answerCount;
+	}
+
+	public void setAnswerCount(Integer answerCount) {
+		this.answerCount = answerCount;
+	}
+
+	public LocalDateTime getLastActivity() {
+		return lastActivity;
+	}
+
+	public void setLastActivity(LocalDateTime lastActivity) {
+		this.lastActivity = lastActivity;
+	}
+
+	public Boolean getDeleted() {
+		return deleted;
+	}
+
 	public User getUser() {
 		return user;
 	}
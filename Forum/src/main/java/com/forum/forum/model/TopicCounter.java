@@ -0,0 +1,47 @@
+package com.forum.forum.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Number of topics of a course, or of all topics when courseId is {@link #ALL_TOPICS}.
+ * Maintained in the same transaction as the topic writes, so totals never need a count(*).
+ * The {@link #INITIALIZED} row marks a table filled by the initial count (see TopicCounters).
+ */
+@Entity
+public class TopicCounter {
+
+	public static final Long ALL_TOPICS = 0L;
+	public static final Long INITIALIZED = -1L;
+
+	@Id
+	private Long courseId;
+	private Long total = 0L;
+
+	/**
+	 * @deprecated hibernat only
+	 */
+	public TopicCounter() {}
+
+	public TopicCounter(Long courseId, Long total) {
+		this.courseId = courseId;
+		this.total = total;
+	}
+
+	public Long getCourseId() {
+		return courseId;
+	}
+
+	public void setCourseId(Long courseId) {
+		this.courseId = courseId;
+	}
+
+	public Long getTotal() {
+		return total;
+	}
+
+	public void setTotal(Long total) {
+		this.total = total;
+	}
+
+}
@@ -3,30 +3,51 @@ package com.forum.forum.model;
 import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.forum.forum.config.security.UserChangeListener;
+import com.forum.forum.service.ReferenceRowListener;
+
 @Entity
+//login reads "where email = ?", an email belongs to one user
+@Table(indexes = @Index(name = "user_email", columnList = "email", unique = true))
+//second-level cache (ehcache.xml), with its profiles: read by the authentication of every request
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({ UserChangeListener.class, ReferenceRowListener.class })
 public class User implements UserDetails{
 
 	private static final long serialVersionUID = 1L;
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+	@SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
 	private Long id;
 	private String name;
 	private String email;
 	private String password;
 	
 	//fetchtype Eager, will load all user profiles when the User class is called;
+	//batch size, when many users are loaded at once (e.g. answer authors) their profiles come in one query
 	@ManyToMany(fetch = FetchType.EAGER)
+	@BatchSize(size = 50)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	private List<Profile> profiles;
 	
 	/**
@@ -0,0 +1,28 @@
+package com.forum.forum.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.forum.forum.model.Answer;
+
+public interface AnswerRepository extends JpaRepository<Answer, Long>{
+
+	//answers with their authors in one select, as slices (no count(*) query)
+	@Query("select a from Answer a join fetch a.user where a.topic.id = :topicId and a.topic.deleted = false")
+	Slice<Answer> findByTopicId(@Param("topicId") Long topicId, Pageable pageable);
+
+	//a topic has at most one resolved answer
+	@Modifying
+	@Query("update Answer a set a.resolved = false where a.topic.id = :topicId and a.resolved = true and a.id <> :answerId")
+	int unresolveOthers(@Param("topicId") Long topicId, @Param("answerId") Long answerId);
+
+	//Purge of the soft deleted topics (native: the @Where of Topic hides them from JPQL); the deletes are in TopicPurger
+	@Query(value = "select a.id from answer a join topic t on t.id = a.topic_id where t.deleted = true limit :limit", nativeQuery = true)
+	List<Number> findPurgeableIds(@Param("limit") int limit);
+}
@@ -0,0 +1,9 @@
+package com.forum.forum.repository;
+
+//Projection of the "group by course" count of topics
+public interface CourseCount {
+
+	Long getCourseId();
+
+	Long getTotal();
+}
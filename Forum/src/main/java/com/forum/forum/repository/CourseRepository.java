@@ -1,10 +1,17 @@
 package com.forum.forum.repository;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.forum.forum.model.Course;
 
 public interface CourseRepository extends JpaRepository<Course, Long>{
 
+	//query cache: the id is cached by name, the Course itself comes from the entity cache.
+	// Any write to the course table invalidates the region.
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "course-by-name") })
 	Course findByName(String courseName);
 }
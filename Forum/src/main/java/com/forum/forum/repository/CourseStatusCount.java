@@ -0,0 +1,13 @@
+package com.forum.forum.repository;
+
+import com.forum.forum.model.TopicStatus;
+
+//Projection of the "group by course, status" count of topics
+public interface CourseStatusCount {
+
+	Long getCourseId();
+
+	TopicStatus getStatus();
+
+	Long getTotal();
+}
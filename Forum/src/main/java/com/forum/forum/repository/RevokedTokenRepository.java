@@ -0,0 +1,19 @@
+package com.forum.forum.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.forum.forum.model.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String>{
+
+	List<RevokedToken> findByExpirationGreaterThan(Long now);
+
+	@Modifying
+	@Query("delete from RevokedToken r where r.expiration <= :now")
+	int deleteExpired(@Param("now") Long now);
+}
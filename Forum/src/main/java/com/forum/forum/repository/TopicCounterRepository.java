@@ -0,0 +1,16 @@
+package com.forum.forum.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.forum.forum.model.TopicCounter;
+
+public interface TopicCounterRepository extends JpaRepository<TopicCounter, Long>{
+
+	//single statement, the row lock keeps concurrent writers from losing increments
+	@Modifying
+	@Query("update TopicCounter c set c.total = c.total + :delta where c.courseId = :courseId")
+	int add(@Param("courseId") Long courseId, @Param("delta") long delta);
+}
@@ -1,12 +1,101 @@
 package com.forum.forum.repository;
 
-import org.springframework.data.domain.Page;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.forum.forum.model.Topic;
+import com.forum.forum.model.TopicStatus;
 
 public interface TopicRepository extends JpaRepository<Topic, Long>{
 
-	Page<Topic> findByCourseName(String courseName, Pageable pageable);
+	//Projections: "select t.id, t.title, t.post, t.creationDate, t.answerCount, t.lastActivity, t.version" only, as slices (no count(*) query).
+	//Course filters compare course_id (resolved by the CourseDictionary), no join with course.
+	Slice<TopicSummary> findSlicedBy(Pageable pageable);
+
+	Slice<TopicSummary> findSlicedByCourseId(Long courseId, Pageable pageable);
+
+	//Full scan, only used to initialize the topic counters
+	@Query("select t.course.id as courseId, count(t) as total from Topic t group by t.course.id")
+	List<CourseCount> countByCourse();
+
+	//Full scan, used to reconcile the in-memory statistics
+	@Query("select t.course.id as courseId, t.status as status, count(t) as total from Topic t group by t.course.id, t.status")
+	List<CourseStatusCount> countByCourseAndStatus();
+
+	//Keyset (cursor) pagination: "where id < :id order by id desc limit n", no offset and no count(*)
+	List<TopicSummary> findSummariesByIdLessThanOrderByIdDesc(Long id, Pageable limit);
+
+	List<TopicSummary> findSummariesByCourseIdAndIdLessThanOrderByIdDesc(Long courseId, Long id, Pageable limit);
+
+	List<TopicSummary> findSummariesByIdIn(Collection<Long> ids);
+
+	//Export: rows are scrolled from the database (fetch size below) instead of being loaded in one list.
+	// The Stream must be consumed inside a transaction and closed.
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select t.id as id, t.title as title, t.post as post, t.creationDate as creationDate, "
+			+ "t.answerCount as answerCount, t.lastActivity as lastActivity, t.version as version from Topic t order by t.id")
+	Stream<TopicSummary> streamAllBy();
+
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select t.id as id, t.title as title, t.post as post, t.creationDate as creationDate, "
+			+ "t.answerCount as answerCount, t.lastActivity as lastActivity, t.version as version from Topic t "
+			+ "where t.course.id = :courseId order by t.id")
+	Stream<TopicSummary> streamByCourseId(@Param("courseId") Long courseId);
+
+	//Topic, author, course, answers and answer authors in a single select (profiles of the authors are batch loaded)
+	@Query("select distinct t from Topic t left join fetch t.user left join fetch t.course "
+			+ "left join fetch t.answers a left join fetch a.user where t.id = :id")
+	Optional<Topic> findDetailById(@Param("id") Long id);
+
+	//course_id is read from the topic row, there is no join with course
+	@Query("select t.id as id, t.title as title, t.post as post, t.creationDate as creationDate, "
+			+ "t.answerCount as answerCount, t.lastActivity as lastActivity, t.version as version, "
+			+ "t.course.id as courseId, t.status as status from Topic t where t.id = :id")
+	Optional<TopicState> findStateById(@Param("id") Long id);
+
+	//Edits and deletes by id in one statement, without loading the topic first. 0 rows: missing topic or other version.
+	// The @Where of Topic is not applied to bulk statements, hence the explicit "deleted = false".
+	@Modifying
+	@Query("update Topic t set t.title = :title, t.post = :post, t.version = t.version + 1 where t.id = :id and t.deleted = false")
+	int update(@Param("id") Long id, @Param("title") String title, @Param("post") String post);
+
+	@Modifying
+	@Query("update Topic t set t.title = :title, t.post = :post, t.version = t.version + 1 "
+			+ "where t.id = :id and t.version = :version and t.deleted = false")
+	int update(@Param("id") Long id, @Param("version") Long version, @Param("title") String title, @Param("post") String post);
+
+	//soft delete, the answers stay until the purge
+	@Modifying
+	@Query("update Topic t set t.deleted = true, t.version = t.version + 1 "
+			+ "where t.id = :id and t.version = :version and t.deleted = false")
+	int delete(@Param("id") Long id, @Param("version") Long version);
+
+	//Answer writes: single statements, so concurrent answers cannot lose an increment.
+	// The status updates only match the expected status, their row count tells whether the status changed.
+	@Modifying
+	@Query("update Topic t set t.answerCount = t.answerCount + 1, t.lastActivity = :now where t.id = :id and t.deleted = false")
+	int answerAdded(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+	@Modifying
+	@Query("update Topic t set t.status = :to, t.lastActivity = :now where t.id = :id and t.status = :from and t.deleted = false")
+	int changeStatus(@Param("id") Long id, @Param("from") TopicStatus from, @Param("to") TopicStatus to, @Param("now") LocalDateTime now);
+
+	//Purge (native: the @Where hides the deleted topics from JPQL). Topics whose answers are already purged;
+	// the deletes are in TopicPurger
+	@Query(value = "select t.id from topic t where t.deleted = true "
+			+ "and not exists (select 1 from answer a where a.topic_id = t.id) limit :limit", nativeQuery = true)
+	List<Number> findPurgeableIds(@Param("limit") int limit);
 }
@@ -0,0 +1,14 @@
+package com.forum.forum.repository;
+
+import com.forum.forum.model.TopicStatus;
+
+/**
+ * TopicSummary plus the columns the writes need (course for the counters and caches, status for the statistics),
+ * read by primary key without loading the Topic nor its associations.
+ */
+public interface TopicState extends TopicSummary {
+
+	Long getCourseId();
+
+	TopicStatus getStatus();
+}
@@ -0,0 +1,24 @@
+package com.forum.forum.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of Topic used by the list queries: Spring Data selects only these columns,
+ * so no Topic (nor its User and Course) is loaded into the persistence context.
+ */
+public interface TopicSummary {
+
+	Long getId();
+
+	String getTitle();
+
+	String getPost();
+
+	LocalDateTime getCreationDate();
+
+	Integer getAnswerCount();
+
+	LocalDateTime getLastActivity();
+
+	Long getVersion();
+}
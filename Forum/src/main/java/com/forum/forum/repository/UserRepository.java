@@ -2,11 +2,17 @@ package com.forum.forum.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.forum.forum.model.User;
 
 public interface UserRepository extends JpaRepository<User, Long>{
 
+	//query cache, see CourseRepository.findByName
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "user-by-email") })
 	Optional<User> findByEmail(String email);
 }
@@ -0,0 +1,29 @@
+package com.forum.forum.service;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.model.Course;
+
+/**
+ * Reloads the CourseDictionary after a course is created, changed or removed through JPA.
+ * Hibernate builds it through Spring, the dictionary is looked up lazily because
+ * the listener is created together with the EntityManagerFactory.
+ */
+public class CourseChangeListener {
+
+	@Autowired
+	private ObjectProvider<CourseDictionary> courseDictionary;
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void courseChanged(Course course) {
+		AfterCommit.run(() -> courseDictionary.getObject().refresh());
+	}
+}
@@ -0,0 +1,87 @@
+package com.forum.forum.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.forum.forum.model.Course;
+import com.forum.forum.repository.CourseRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Resident name -> Course and id -> Course dictionary.
+ * 
+ * Courses almost never change, so every read goes to an immutable snapshot and every change
+ * builds a new one (copy-on-write). The Course instances are detached: use them as references
+ * (e.g. new Topic(..., course)) and for their id and name.
+ */
+@Service
+public class CourseDictionary {
+
+	@Autowired
+	private CourseRepository courseRepository;
+
+	private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+	//Names not found in the database either (misspelled filters, bad import rows): not looked up again for a while.
+	//Bounded, and cleared by every refresh (the CourseChangeListener after a course change)
+	private final Cache<String, Boolean> missing = Caffeine.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(30, TimeUnit.SECONDS)
+			.build();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void refresh() {
+		snapshot = new Snapshot(courseRepository.findAll());
+		missing.invalidateAll();
+	}
+
+	//A name missing from the snapshot is looked up once in the database, in case the course was created elsewhere
+	public Course byName(String name) {
+		Course course = snapshot.byName.get(name);
+		if (course == null && name != null && missing.getIfPresent(name) == null) {
+			course = courseRepository.findByName(name);
+			if (course != null) {
+				register(course);
+			} else {
+				missing.put(name, Boolean.TRUE);
+			}
+		}
+		return course;
+	}
+
+	public Course byId(Long id) {
+		return snapshot.byId.get(id);
+	}
+
+	private synchronized void register(Course course) {
+		List<Course> courses = new ArrayList<>(snapshot.byId.values());
+		courses.add(course);
+		snapshot = new Snapshot(courses);
+	}
+
+	private static final class Snapshot {
+
+		private final Map<String, Course> byName;
+		private final Map<Long, Course> byId;
+
+		private Snapshot(List<Course> courses) {
+			Map<String, Course> byName = new HashMap<>();
+			Map<Long, Course> byId = new HashMap<>();
+			courses.forEach(course -> {
+				byName.put(course.getName(), course);
+				byId.put(course.getId(), course);
+			});
+			this.byName = Collections.unmodifiableMap(byName);
+			this.byId = Collections.unmodifiableMap(byId);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.forum.forum.service;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Copies the courses and users written through JPA to the other shards (see ReferenceRows).
+ * Looked up lazily, like the other entity listeners.
+ */
+public class ReferenceRowListener {
+
+	@Autowired
+	private ObjectProvider<ReferenceRows> referenceRows;
+
+	@PostPersist
+	@PostUpdate
+	public void changed(Object entity) {
+		referenceRows.getObject().changed(entity);
+	}
+}
@@ -0,0 +1,67 @@
+package com.forum.forum.service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.forum.forum.config.sharding.ShardContext;
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.model.Course;
+import com.forum.forum.model.User;
+
+/**
+ * Sharded, the courses and users are written on shard 0, but the topics and answers of every shard reference
+ * them (foreign keys, author joins): a course or user created or changed on shard 0 is copied to the other shards
+ * once its transaction commits. A copy that fails is logged; the topics of that course or user cannot be written
+ * on that shard until the row is copied again (any later change of it does).
+ */
+@Service
+public class ReferenceRows {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceRows.class);
+
+	@Autowired
+	private TopicShards topicShards;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public void changed(Object entity) {
+		Integer shard = ShardContext.current();
+		if (!topicShards.isSharded() || (shard != null && shard != 0)) {
+			return;
+		}
+		if (entity instanceof Course) {
+			Course course = (Course) entity;
+			AfterCommit.run(() -> copy(Course.class, course.getId(), "merge into course(id, name, category) key(id) values(?1, ?2, ?3)",
+					course.getId(), course.getName(), course.getCategory()));
+		} else if (entity instanceof User) {
+			User user = (User) entity;
+			//its profiles are not copied: the authentication reads the users of shard 0
+			AfterCommit.run(() -> copy(User.class, user.getId(), "merge into user(id, name, email, password) key(id) values(?1, ?2, ?3, ?4)",
+					user.getId(), user.getName(), user.getEmail(), user.getPassword()));
+		}
+	}
+
+	//H2 MERGE: insert, or update by id. Each shard in its own transaction, one failing shard does not stop the others.
+	// With its entity, the native write only evicts the second-level cache region of that entity
+	private void copy(Class<?> entity, Long id, String sql, Object... values) {
+		for (int shard = 1; shard < topicShards.count(); shard++) {
+			try {
+				topicShards.on(shard, () -> {
+					NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+					for (int i = 0; i < values.length; i++) {
+						query.setParameter(i + 1, values[i]);
+					}
+					return query.addSynchronizedEntityClass(entity).executeUpdate();
+				});
+			} catch (RuntimeException e) {
+				LOGGER.error("{} {} not copied to shard {}", entity.getSimpleName(), id, shard, e);
+			}
+		}
+	}
+}
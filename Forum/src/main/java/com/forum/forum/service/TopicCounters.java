@@ -0,0 +1,152 @@
+package com.forum.forum.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.forum.forum.model.Topic;
+import com.forum.forum.model.TopicCounter;
+import com.forum.forum.repository.CourseCount;
+import com.forum.forum.repository.TopicCounterRepository;
+import com.forum.forum.repository.TopicRepository;
+
+/**
+ * Topic totals, per course and overall, read in O(1) from the topic_counter table.
+ * The add/remove methods must run in the transaction that writes the topic.
+ * Sharded, each shard counts its own topics: the overall total is the sum of the shards.
+ */
+@Service
+public class TopicCounters implements SmartInitializingSingleton {
+
+	@Autowired
+	private TopicCounterRepository topicCounterRepository;
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private TopicShards topicShards;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionTemplate newTransaction;
+
+	public TopicCounters(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	//Counts once per database (first boot, or counters from before the marker), when every bean is ready but
+	//before the web server accepts requests, so no topic is written while it counts
+	@Override
+	public void afterSingletonsInstantiated() {
+		for (int shard = 0; shard < topicShards.count(); shard++) {
+			topicShards.using(shard, () -> transactionTemplate.execute(status -> {
+				initializeShard();
+				return null;
+			}));
+		}
+	}
+
+	private void initializeShard() {
+		if (topicCounterRepository.existsById(TopicCounter.INITIALIZED)) {
+			return;
+		}
+		topicCounterRepository.deleteAllInBatch();
+		List<TopicCounter> counters = new ArrayList<>();
+		long all = 0;
+		for (CourseCount count : topicRepository.countByCourse()) {
+			all += count.getTotal();
+			if (count.getCourseId() != null) {
+				counters.add(new TopicCounter(count.getCourseId(), count.getTotal()));
+			}
+		}
+		counters.add(new TopicCounter(TopicCounter.ALL_TOPICS, all));
+		counters.add(new TopicCounter(TopicCounter.INITIALIZED, 0L));
+		topicCounterRepository.saveAll(counters);
+	}
+
+	public void topicAdded(Topic topic) {
+		add(topic, 1);
+	}
+
+	//one statement per course of the batch, not per topic
+	public void topicsAdded(Collection<Topic> topics) {
+		Map<Long, Long> byCourse = topics.stream().filter(topic -> topic.getCurso() != null)
+				.collect(Collectors.groupingBy(topic -> topic.getCurso().getId(), Collectors.counting()));
+		add(TopicCounter.ALL_TOPICS, topics.size());
+		byCourse.forEach(this::add);
+	}
+
+	public void topicRemoved(Topic topic) {
+		add(topic, -1);
+	}
+
+	public void topicRemoved(Long courseId) {
+		add(TopicCounter.ALL_TOPICS, -1);
+		if (courseId != null) {
+			add(courseId, -1);
+		}
+	}
+
+	//courseId null is the total of all topics
+	public long total(Long courseId) {
+		if (courseId == null) {
+			return topicShards.onEach(() -> count(TopicCounter.ALL_TOPICS)).stream().mapToLong(Long::longValue).sum();
+		}
+		return topicShards.on(topicShards.ofCourse(courseId), () -> count(courseId));
+	}
+
+	private long count(Long courseId) {
+		return topicCounterRepository.findById(courseId).map(TopicCounter::getTotal).orElse(0L);
+	}
+
+	private void add(Topic topic, long delta) {
+		add(TopicCounter.ALL_TOPICS, delta);
+		if (topic.getCurso() != null) {
+			add(topic.getCurso().getId(), delta);
+		}
+	}
+
+	//the first topic of a new course creates its counter
+	private void add(Long courseId, long delta) {
+		if (topicCounterRepository.add(courseId, delta) == 0) {
+			create(courseId);
+			if (topicCounterRepository.add(courseId, delta) == 0) {
+				throw new IllegalStateException("No topic counter for course " + courseId);
+			}
+		}
+	}
+
+	//an empty row committed on its own: when two first topics of a course race, one insert fails and
+	//both increment the same row, the topic writes never fail on the counter.
+	//persist, not save: a merge of an existing row would reset its total
+	private void create(Long courseId) {
+		try {
+			newTransaction.execute(status -> {
+				entityManager.persist(new TopicCounter(courseId, 0L));
+				entityManager.flush();
+				return null;
+			});
+		} catch (PersistenceException e) {
+			if (!(e.getCause() instanceof ConstraintViolationException)) {
+				throw e;
+			}
+			//created by the concurrent transaction
+		}
+	}
+}
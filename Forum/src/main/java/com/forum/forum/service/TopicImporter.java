@@ -0,0 +1,198 @@
+package com.forum.forum.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forum.forum.config.cache.TopicCacheEvictor;
+import com.forum.forum.controller.dto.BulkTopicResultDTO;
+import com.forum.forum.controller.form.TopicForm;
+import com.forum.forum.model.Topic;
+import com.forum.forum.model.User;
+import com.forum.forum.repository.TopicRepository;
+import com.forum.forum.repository.UserRepository;
+
+/**
+ * Creates topics from a JSON array or a NDJSON stream of TopicForm.
+ * 
+ * The input is read and validated one item at a time, the valid ones are inserted in chunks of
+ * {@value #CHUNK_SIZE}, each in its own transaction (JDBC batched, courses from the CourseDictionary,
+ * one counter update per course), and the topic caches are cleared once at the end.
+ * A chunk that fails rolls back alone (when sharded, the part of the chunk on the failing shard):
+ * its items are reported as FAILED and the import goes on with the next one.
+ */
+@Service
+public class TopicImporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TopicImporter.class);
+
+	private static final int CHUNK_SIZE = 500;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private Validator validator;
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CourseDictionary courseDictionary;
+	@Autowired
+	private TopicCounters topicCounters;
+	@Autowired
+	private TopicStatistics topicStatistics;
+	@Autowired
+	private TopicSearchIndex topicSearchIndex;
+	@Autowired
+	private TopicCacheEvictor topicCacheEvictor;
+	@Autowired
+	private TopicShards topicShards;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public TopicImporter(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	public List<BulkTopicResultDTO> importTopics(InputStream input, Long authorId) throws IOException {
+		List<BulkTopicResultDTO> results = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>(CHUNK_SIZE);
+		List<Topic> chunk = new ArrayList<>(CHUNK_SIZE);
+		int index = 0;
+		
+		try {
+			try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+				JsonToken token = parser.nextToken();
+				//NDJSON is just a sequence of root objects for the parser
+				if (token == JsonToken.START_ARRAY) {
+					token = parser.nextToken();
+				}
+				while (token == JsonToken.START_OBJECT) {
+					int depth = depth(parser.getParsingContext());
+					try {
+						TopicForm form = objectMapper.readValue(parser, TopicForm.class);
+						List<String> errors = validate(form);
+						if (errors.isEmpty()) {
+							indexes.add(index);
+							chunk.add(form.toTopic(courseDictionary));
+						} else {
+							results.add(BulkTopicResultDTO.invalid(index, errors));
+						}
+					} catch (JsonMappingException e) {
+						//well-formed but not a topic (e.g. "title": []): only this item is invalid
+						results.add(BulkTopicResultDTO.invalid(index, Collections.singletonList(e.getOriginalMessage())));
+						skipRest(parser, depth);
+					}
+					if (chunk.size() == CHUNK_SIZE) {
+						insert(chunk, indexes, authorId, results);
+					}
+					index++;
+					token = parser.nextToken();
+				}
+				if (token != null && token != JsonToken.END_ARRAY) {
+					results.add(BulkTopicResultDTO.invalid(index, Collections.singletonList("expected a topic object")));
+				}
+			} catch (JsonParseException e) {
+				//the stream cannot be read after a syntax error: what was read so far is still imported
+				results.add(BulkTopicResultDTO.invalid(index, Collections.singletonList(e.getOriginalMessage())));
+			}
+			if (!chunk.isEmpty()) {
+				insert(chunk, indexes, authorId, results);
+			}
+		} finally {
+			//the chunks inserted before an I/O error are committed
+			topicCacheEvictor.topicsImported();
+		}
+		results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+		return results;
+	}
+
+	//Moves the parser to the END_OBJECT of the object being read (whose context is at the given depth),
+	// wherever the mapping stopped inside it
+	private static void skipRest(JsonParser parser, int depth) throws IOException {
+		JsonToken token = parser.currentToken();
+		while (token != null && !(token == JsonToken.END_OBJECT && depth(parser.getParsingContext()) < depth)) {
+			token = parser.nextToken();
+		}
+	}
+
+	private static int depth(JsonStreamContext context) {
+		int depth = 0;
+		for (JsonStreamContext parent = context; parent != null; parent = parent.getParent()) {
+			depth++;
+		}
+		return depth;
+	}
+
+	private List<String> validate(TopicForm form) {
+		List<String> errors = validator.validate(form).stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.collect(Collectors.toList());
+		if (errors.isEmpty() && courseDictionary.byName(form.getCourseName()) == null) {
+			errors.add("courseName: course not found");
+		}
+		return errors;
+	}
+
+	//the chunk is always consumed: its items end up CREATED or, when their transaction fails, FAILED
+	private void insert(List<Topic> chunk, List<Integer> indexes, Long authorId, List<BulkTopicResultDTO> results) {
+		//sharded: one transaction per shard of the chunk, positions in the chunk grouped by shard
+		Map<Integer, List<Integer>> shards = IntStream.range(0, chunk.size()).boxed()
+				.collect(Collectors.groupingBy(i -> topicShards.ofCourse(chunk.get(i).getCurso().getId())));
+		shards.forEach((shard, positions) -> {
+			List<Topic> topics = positions.stream().map(chunk::get).collect(Collectors.toList());
+			try {
+				topicShards.using(shard, () -> save(topics, authorId));
+				positions.forEach(i -> results.add(BulkTopicResultDTO.created(indexes.get(i), chunk.get(i).getId())));
+			} catch (RuntimeException e) {
+				LOGGER.warn("Bulk import of {} topics failed on shard {}", topics.size(), shard, e);
+				positions.forEach(i -> results.add(BulkTopicResultDTO.failed(indexes.get(i), "not imported, please retry")));
+			}
+		});
+		chunk.clear();
+		indexes.clear();
+	}
+
+	private Void save(List<Topic> topics, Long authorId) {
+		return transactionTemplate.execute(status -> {
+			User author = userRepository.getOne(authorId);
+			topics.forEach(topic -> topic.setUser(author));
+			topicRepository.saveAll(topics);
+			topicCounters.topicsAdded(topics);
+			//the in-memory structures are only updated once the transaction commits (AfterCommit)
+			topics.forEach(topic -> {
+				topicStatistics.topicCreated(topic);
+				topicSearchIndex.topicSaved(topic);
+			});
+			//the request may keep its EntityManager open (open-in-view), it must not pile up every imported topic
+			entityManager.flush();
+			entityManager.clear();
+			return null;
+		});
+	}
+}
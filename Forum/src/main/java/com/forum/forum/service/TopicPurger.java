@@ -0,0 +1,102 @@
+package com.forum.forum.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.forum.forum.model.Answer;
+import com.forum.forum.model.Topic;
+import com.forum.forum.repository.AnswerRepository;
+import com.forum.forum.repository.TopicRepository;
+
+/**
+ * Removes the soft deleted topics in the background: first their answers, then the topics,
+ * {@code forum.purge.batch-size} rows per transaction and at most {@code forum.purge.max-batches} batches per run,
+ * so a big topic never holds long locks nor a long transaction.
+ */
+@Service
+public class TopicPurger {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TopicPurger.class);
+
+	@Autowired
+	private AnswerRepository answerRepository;
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private TopicShards topicShards;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${forum.purge.batch-size:500}")
+	private int batchSize;
+	@Value("${forum.purge.max-batches:20}")
+	private int maxBatches;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public TopicPurger(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Scheduled(initialDelayString = "${forum.purge.interval:60000}", fixedDelayString = "${forum.purge.interval:60000}")
+	public void purge() {
+		for (int shard = 0; shard < topicShards.count(); shard++) {
+			topicShards.using(shard, this::purgeShard);
+		}
+	}
+
+	private Void purgeShard() {
+		int answers = 0;
+		int topics = 0;
+		int batches = 0;
+		int purged;
+		//the answers go first, a topic is only purged when none references it
+		do {
+			purged = transactionTemplate.execute(status -> {
+				List<Long> ids = ids(answerRepository.findPurgeableIds(batchSize));
+				return ids.isEmpty() ? 0 : delete("delete from answer where id in (:ids)", Answer.class, ids);
+			});
+			answers += purged;
+			batches++;
+		} while (purged == batchSize && batches < maxBatches);
+		
+		while (batches < maxBatches) {
+			batches++;
+			purged = transactionTemplate.execute(status -> {
+				List<Long> ids = ids(topicRepository.findPurgeableIds(batchSize));
+				return ids.isEmpty() ? 0 : delete("delete from topic where id in (:ids) and deleted = true", Topic.class, ids);
+			});
+			topics += purged;
+			if (purged < batchSize) {
+				break;
+			}
+		}
+		if (answers > 0 || topics > 0) {
+			LOGGER.info("Purged {} deleted topics and {} of their answers", topics, answers);
+		}
+		return null;
+	}
+
+	//a native delete without its entity would make Hibernate evict every second-level cache region
+	private int delete(String sql, Class<?> entity, List<Long> ids) {
+		NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+		return query.addSynchronizedEntityClass(entity).setParameter("ids", ids).executeUpdate();
+	}
+
+	private static List<Long> ids(List<Number> ids) {
+		return ids.stream().map(Number::longValue).collect(Collectors.toList());
+	}
+}
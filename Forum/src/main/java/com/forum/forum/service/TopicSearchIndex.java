@@ -0,0 +1,331 @@
+package com.forum.forum.service;
+
+import java.text.Normalizer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjDoubleConsumer;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.model.Topic;
+import com.forum.forum.repository.TopicRepository;
+import com.forum.forum.repository.TopicSummary;
+
+/**
+ * In-memory inverted index over the title and the post of the topics.
+ * 
+ * Each term points to the topics holding it with a weighted term frequency (a title hit counts
+ * {@value #TITLE_WEIGHT} times). Queries are ranked by tf-idf; the index returns only ids, the caller loads the rows.
+ * The ids deleted while the index is rebuilding are kept aside until the end of the rebuild, so a deleted topic
+ * read by the rebuild before its deletion is not indexed again.
+ */
+@Service
+public class TopicSearchIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TopicSearchIndex.class);
+	private static final int TITLE_WEIGHT = 3;
+	private static final int REBUILD_BATCH_SIZE = 1000;
+	//share of the topics above which a term is common (see search)
+	private static final double COMMON_TERM_RATIO = 0.05;
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+	private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private TopicShards topicShards;
+
+	//term -> (topic id -> weighted frequency)
+	private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+	//topic id -> its terms, to take the old postings out on update and delete
+	private final Map<Long, Map<String, Integer>> documents = new ConcurrentHashMap<>();
+	//ids deleted during the rebuild, which skips them
+	private final Set<Long> deletedDuringRebuild = ConcurrentHashMap.newKeySet();
+	private volatile boolean rebuilding;
+
+	//Writes reach the index only after their commit
+	public void topicSaved(Topic topic) {
+		topicSaved(topic.getId(), topic.getTitle(), topic.getPost());
+	}
+
+	public void topicSaved(Long id, String title, String post) {
+		AfterCommit.run(() -> index(id, title, post, true));
+	}
+
+	//the tombstone goes first: a rebuild indexing the topic right now either sees it or is undone below
+	public void topicDeleted(Long id) {
+		AfterCommit.run(() -> {
+			if (rebuilding) {
+				deletedDuringRebuild.add(id);
+			}
+			documents.computeIfPresent(id, (key, terms) -> {
+				removePostings(key, terms);
+				return null;
+			});
+		});
+	}
+
+	//Ranked ids of the topics matching any term of the query. The postings of the rarest term, and of the terms
+	// in at most COMMON_TERM_RATIO of the topics, are scanned; the more common terms are only looked up for the
+	// topics already matched (a topic holding only common terms is not a hit), so their size does not cost.
+	public Page<Long> search(String query, Pageable pageable) {
+		List<Map<Long, Integer>> matched = new ArrayList<>();
+		for (String term : terms(query, 1).keySet()) {
+			Map<Long, Integer> topics = postings.get(term);
+			if (topics != null) {
+				matched.add(topics);
+			}
+		}
+		if (matched.isEmpty()) {
+			return Page.empty(pageable);
+		}
+		matched.sort(Comparator.comparingInt(Map::size));
+		int total = Math.max(documents.size(), 1);
+		double[] idfs = new double[matched.size()];
+		for (int i = 0; i < idfs.length; i++) {
+			idfs[i] = Math.log(1 + (double) total / matched.get(i).size());
+		}
+		int scanned = 1;
+		int expected = matched.get(0).size();
+		while (scanned < matched.size() && matched.get(scanned).size() <= total * COMMON_TERM_RATIO) {
+			expected += matched.get(scanned++).size();
+		}
+		
+		Hits hits = new Hits(pageable.getOffset() + pageable.getPageSize());
+		int count;
+		if (scanned == 1) {
+			//one scanned term meets each topic once: it is scored right away, without accumulator
+			Map<Long, Integer> rarest = matched.get(0);
+			rarest.forEach((id, frequency) -> hits.offer(id, score(idfs[0], frequency) + lookUp(id, matched, idfs, 1)));
+			count = rarest.size();
+		} else {
+			Scores scores = new Scores(expected);
+			for (int i = 0; i < scanned; i++) {
+				double idf = idfs[i];
+				matched.get(i).forEach((id, frequency) -> scores.add(id, score(idf, frequency)));
+			}
+			int common = scanned;
+			scores.forEach((id, score) -> hits.offer(id, score + lookUp(id, matched, idfs, common)));
+			count = scores.size;
+		}
+		List<Long> ids = hits.ranked();
+		int from = (int) Math.min(pageable.getOffset(), ids.size());
+		return new PageImpl<>(new ArrayList<>(ids.subList(from, ids.size())), pageable, count);
+	}
+
+	private static double score(double idf, int frequency) {
+		return idf * (1 + Math.log(frequency));
+	}
+
+	//the score of a matched topic in the postings of the common terms (from "from" on)
+	private static double lookUp(Long id, List<Map<Long, Integer>> matched, double[] idfs, int from) {
+		double score = 0;
+		for (int i = from; i < matched.size(); i++) {
+			Integer frequency = matched.get(i).get(id);
+			if (frequency != null) {
+				score += score(idfs[i], frequency);
+			}
+		}
+		return score;
+	}
+
+	//Rebuilt in background, so the startup does not wait for it; batches are tokenized in parallel
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		Thread rebuild = new Thread(() -> {
+			long start = System.currentTimeMillis();
+			rebuilding = true;
+			try {
+				for (int shard = 0; shard < topicShards.count(); shard++) {
+					topicShards.using(shard, this::indexShard);
+				}
+			} finally {
+				rebuilding = false;
+				deletedDuringRebuild.clear();
+			}
+			LOGGER.info("Search index rebuilt with {} topics in {} ms", documents.size(), System.currentTimeMillis() - start);
+		}, "topic-search-rebuild");
+		rebuild.setDaemon(true);
+		rebuild.start();
+	}
+
+	private Void indexShard() {
+		Long after = Long.MAX_VALUE;
+		List<TopicSummary> batch;
+		do {
+			batch = topicRepository.findSummariesByIdLessThanOrderByIdDesc(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+			//a topic written meanwhile is already indexed with its newest content, so it is not overwritten
+			batch.parallelStream().forEach(topic -> index(topic.getId(), topic.getTitle(), topic.getPost(), false));
+			if (!batch.isEmpty()) {
+				after = batch.get(batch.size() - 1).getId();
+			}
+		} while (batch.size() == REBUILD_BATCH_SIZE);
+		return null;
+	}
+
+	private void index(Long id, String title, String post, boolean replace) {
+		Map<String, Integer> terms = terms(title, TITLE_WEIGHT);
+		terms(post, 1).forEach((term, frequency) -> terms.merge(term, frequency, Integer::sum));
+		documents.compute(id, (key, old) -> {
+			if (!replace && (old != null || deletedDuringRebuild.contains(key))) {
+				return old;
+			}
+			if (old != null) {
+				removePostings(key, old);
+			}
+			terms.forEach((term, frequency) -> postings.compute(term, (t, topics) -> {
+				Map<Long, Integer> posting = topics == null ? new ConcurrentHashMap<>() : topics;
+				posting.put(key, frequency);
+				return posting;
+			}));
+			return terms;
+		});
+	}
+
+	private void removePostings(Long id, Map<String, Integer> terms) {
+		terms.keySet().forEach(term -> postings.computeIfPresent(term, (t, topics) -> {
+			topics.remove(id);
+			return topics.isEmpty() ? null : topics;
+		}));
+	}
+
+	//lower case, no accents, letters and digits only, at least 2 characters
+	private static Map<String, Integer> terms(String text, int weight) {
+		Map<String, Integer> terms = new LinkedHashMap<>();
+		if (text == null) {
+			return terms;
+		}
+		String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+		for (String token : SEPARATORS.split(normalized)) {
+			if (token.length() >= 2) {
+				terms.merge(token, weight, Integer::sum);
+			}
+		}
+		return terms;
+	}
+
+	//the wanted best hits, best first (ties: highest id first), in a heap instead of a sort of every hit
+	private static final class Hits {
+
+		private final long wanted;
+		private final PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(
+				Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.<Long, Double>comparingByKey()));
+
+		private Hits(long wanted) {
+			this.wanted = wanted;
+		}
+
+		//an entry is only created for a hit that enters the heap
+		private void offer(Long id, double score) {
+			if (best.size() < wanted) {
+				best.offer(new SimpleImmutableEntry<>(id, score));
+				return;
+			}
+			Map.Entry<Long, Double> worst = best.peek();
+			if (worst == null) {
+				return;
+			}
+			int byScore = Double.compare(score, worst.getValue());
+			if (byScore > 0 || (byScore == 0 && id > worst.getKey())) {
+				best.poll();
+				best.offer(new SimpleImmutableEntry<>(id, score));
+			}
+		}
+
+		private List<Long> ranked() {
+			List<Long> ids = new ArrayList<>(best.size());
+			while (!best.isEmpty()) {
+				ids.add(best.poll().getKey());
+			}
+			Collections.reverse(ids);
+			return ids;
+		}
+	}
+
+	//topic id -> score in primitive arrays (open addressing), when several terms are scanned:
+	// no boxed score nor map entry per hit
+	private static final class Scores {
+
+		private static final long FREE = Long.MIN_VALUE;
+
+		private long[] ids;
+		private double[] scores;
+		private int size;
+
+		private Scores(int expected) {
+			allocate(Integer.highestOneBit(Math.max(2 * expected - 1, 15)) << 1);
+		}
+
+		private void add(long id, double score) {
+			int slot = slot(id);
+			if (ids[slot] == FREE) {
+				ids[slot] = id;
+				scores[slot] = score;
+				//the postings may grow while they are scanned
+				if (++size * 2 > ids.length) {
+					grow();
+				}
+			} else {
+				scores[slot] += score;
+			}
+		}
+
+		private void forEach(ObjDoubleConsumer<Long> action) {
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (ids[slot] != FREE) {
+					action.accept(ids[slot], scores[slot]);
+				}
+			}
+		}
+
+		private int slot(long id) {
+			int mask = ids.length - 1;
+			//Fibonacci hashing: the high bits of the product, the low bits of the ids are often the same (shard)
+			int slot = (int) ((id * 0x9E3779B97F4A7C15L) >>> Long.numberOfLeadingZeros(mask));
+			while (ids[slot] != FREE && ids[slot] != id) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void grow() {
+			long[] oldIds = ids;
+			double[] oldScores = scores;
+			allocate(oldIds.length * 2);
+			for (int i = 0; i < oldIds.length; i++) {
+				if (oldIds[i] != FREE) {
+					int slot = slot(oldIds[i]);
+					ids[slot] = oldIds[i];
+					scores[slot] = oldScores[i];
+				}
+			}
+		}
+
+		private void allocate(int capacity) {
+			ids = new long[capacity];
+			Arrays.fill(ids, FREE);
+			scores = new double[capacity];
+		}
+	}
+}
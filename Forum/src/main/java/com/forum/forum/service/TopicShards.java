@@ -0,0 +1,120 @@
+package com.forum.forum.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.forum.forum.config.sharding.ShardContext;
+import com.forum.forum.repository.TopicSummary;
+
+/**
+ * Where the topics are: the shard of a course is its id modulo the number of shards,
+ * the shard of a topic (and of its answers) is in its id (see ShardedSequenceGenerator).
+ * 
+ * Without {@code forum.datasource.shard.urls} there is a single shard and every method just runs the work
+ * in the current transaction. When sharded, {@link #on} runs it in a new transaction on the shard
+ * (read-only if the caller's is), so a caller works on one shard at a time and a write never spans shards.
+ */
+@Service
+public class TopicShards {
+
+	private final int count;
+	private final TransactionTemplate readWrite;
+	private final TransactionTemplate readOnly;
+
+	public TopicShards(PlatformTransactionManager transactionManager,
+			@Value("${forum.datasource.shard.urls:}") List<String> urls) {
+		this.count = urls.size();
+		this.readWrite = new TransactionTemplate(transactionManager);
+		this.readWrite.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.readOnly = new TransactionTemplate(transactionManager);
+		this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.readOnly.setReadOnly(true);
+	}
+
+	public boolean isSharded() {
+		return count > 0;
+	}
+
+	public int count() {
+		return Math.max(count, 1);
+	}
+
+	public int ofCourse(Long courseId) {
+		return isSharded() && courseId != null ? (int) Math.floorMod(courseId, (long) count) : 0;
+	}
+
+	//an id that no shard can have (e.g. mistyped) is looked for on shard 0, where it is not found either
+	public int ofTopic(Long id) {
+		int shard = isSharded() ? ShardContext.of(id) : 0;
+		return shard < count ? shard : 0;
+	}
+
+	//the work in a transaction of the shard
+	public <T> T on(int shard, Supplier<T> work) {
+		if (!isSharded()) {
+			return work.get();
+		}
+		TransactionTemplate transaction = TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? readOnly : readWrite;
+		return using(shard, () -> transaction.execute(status -> work.get()));
+	}
+
+	//the work on the shard, for callers that handle their transactions themselves (batches, background jobs)
+	public <T> T using(int shard, Supplier<T> work) {
+		if (!isSharded()) {
+			return work.get();
+		}
+		Integer previous = ShardContext.current();
+		ShardContext.set(shard);
+		try {
+			return work.get();
+		} finally {
+			ShardContext.set(previous);
+		}
+	}
+
+	//scatter: the work on every shard, one after the other, results in shard order
+	public <T> List<T> onEach(Supplier<T> work) {
+		List<T> results = new ArrayList<>(count());
+		for (int shard = 0; shard < count(); shard++) {
+			results.add(on(shard, work));
+		}
+		return results;
+	}
+
+	//gather: k-way merge of lists each sorted by id DESC, up to limit items
+	public static List<TopicSummary> mergeByIdDesc(List<List<TopicSummary>> lists, int limit) {
+		if (lists.size() == 1) {
+			List<TopicSummary> single = lists.get(0);
+			return single.size() > limit ? single.subList(0, limit) : single;
+		}
+		//heads of the lists: {list index, position}
+		PriorityQueue<int[]> heads = new PriorityQueue<>(Comparator.comparing(
+				(int[] head) -> lists.get(head[0]).get(head[1]).getId(), Collections.reverseOrder()));
+		for (int i = 0; i < lists.size(); i++) {
+			if (!lists.get(i).isEmpty()) {
+				heads.add(new int[] { i, 0 });
+			}
+		}
+		List<TopicSummary> merged = new ArrayList<>(limit);
+		while (!heads.isEmpty() && merged.size() < limit) {
+			int[] head = heads.poll();
+			List<TopicSummary> list = lists.get(head[0]);
+			merged.add(list.get(head[1]));
+			if (++head[1] < list.size()) {
+				heads.add(head);
+			}
+		}
+		return merged;
+	}
+}
@@ -0,0 +1,164 @@
+package com.forum.forum.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.forum.forum.config.transaction.AfterCommit;
+import com.forum.forum.model.Course;
+import com.forum.forum.model.Topic;
+import com.forum.forum.model.TopicStatus;
+import com.forum.forum.repository.CourseStatusCount;
+import com.forum.forum.repository.TopicRepository;
+
+/**
+ * Topic counts by course and by status, kept in memory in LongAdder counters.
+ * 
+ * The topic writes move the counters after their commit; a scheduled reconcile (also run right
+ * after the startup) recounts from the database and swaps the counters, fixing any drift.
+ * The moves made while the recount query runs are also recorded aside and added to the recount before the swap,
+ * so they are not lost (a write whose commit and callback straddle the start of the recount may be counted twice,
+ * until the next reconcile). Arrays are indexed by TopicStatus ordinal.
+ */
+@Service
+public class TopicStatistics {
+
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private TopicShards topicShards;
+
+	private volatile Counts counts = new Counts();
+	//the moves made while a recount runs, null the rest of the time
+	private Counts pending;
+	//the moves share it, the start and the swap of a recount take it alone (not during the query)
+	private final ReadWriteLock swap = new ReentrantReadWriteLock();
+
+	public void topicCreated(Topic topic) {
+		Course course = topic.getCurso();
+		TopicStatus status = topic.getStatus();
+		AfterCommit.run(() -> move(counts -> counts.add(course, status, 1)));
+	}
+
+	public void topicDeleted(Topic topic) {
+		Course course = topic.getCurso();
+		TopicStatus status = topic.getStatus();
+		AfterCommit.run(() -> move(counts -> counts.add(course, status, -1)));
+	}
+
+	public void topicDeleted(Long courseId, TopicStatus status) {
+		AfterCommit.run(() -> move(counts -> counts.add(courseId, status, -1)));
+	}
+
+	public void statusChanged(Topic topic, TopicStatus from, TopicStatus to) {
+		Course course = topic.getCurso();
+		AfterCommit.run(() -> move(counts -> {
+			counts.add(course, from, -1);
+			counts.add(course, to, 1);
+		}));
+	}
+
+	@Scheduled(initialDelayString = "${forum.stats.reconcile-delay:0}", fixedDelayString = "${forum.stats.reconcile-interval:600000}")
+	public void reconcile() {
+		locked(swap.writeLock(), () -> pending = new Counts());
+		Counts recount = new Counts();
+		try {
+			for (List<CourseStatusCount> shard : topicShards.onEach(topicRepository::countByCourseAndStatus)) {
+				for (CourseStatusCount count : shard) {
+					recount.add(count.getCourseId(), count.getStatus(), count.getTotal());
+				}
+			}
+		} catch (RuntimeException e) {
+			locked(swap.writeLock(), () -> pending = null);
+			throw e;
+		}
+		locked(swap.writeLock(), () -> {
+			recount.addAll(pending);
+			counts = recount;
+			pending = null;
+		});
+	}
+
+	private void move(Consumer<Counts> change) {
+		locked(swap.readLock(), () -> {
+			change.accept(counts);
+			if (pending != null) {
+				change.accept(pending);
+			}
+		});
+	}
+
+	private static void locked(Lock lock, Runnable action) {
+		lock.lock();
+		try {
+			action.run();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long[] totals() {
+		return sum(counts.all);
+	}
+
+	//course id -> counts
+	public Map<Long, long[]> byCourse() {
+		Map<Long, long[]> byCourse = new HashMap<>();
+		counts.byCourse.forEach((courseId, adders) -> byCourse.put(courseId, sum(adders)));
+		return byCourse;
+	}
+
+	private static long[] sum(LongAdder[] adders) {
+		long[] sums = new long[adders.length];
+		for (int i = 0; i < adders.length; i++) {
+			sums[i] = adders[i].sum();
+		}
+		return sums;
+	}
+
+	private static final class Counts {
+
+		private final LongAdder[] all = adders();
+		private final Map<Long, LongAdder[]> byCourse = new ConcurrentHashMap<>();
+
+		private void add(Course course, TopicStatus status, long delta) {
+			add(course == null ? null : course.getId(), status, delta);
+		}
+
+		private void add(Long courseId, TopicStatus status, long delta) {
+			all[status.ordinal()].add(delta);
+			if (courseId != null) {
+				byCourse.computeIfAbsent(courseId, id -> adders())[status.ordinal()].add(delta);
+			}
+		}
+
+		private void addAll(Counts other) {
+			addAll(all, other.all);
+			other.byCourse.forEach((courseId, adders) -> addAll(byCourse.computeIfAbsent(courseId, id -> adders()), adders));
+		}
+
+		private static void addAll(LongAdder[] to, LongAdder[] from) {
+			for (int i = 0; i < to.length; i++) {
+				to[i].add(from[i].sum());
+			}
+		}
+
+		private static LongAdder[] adders() {
+			LongAdder[] adders = new LongAdder[TopicStatus.values().length];
+			for (int i = 0; i < adders.length; i++) {
+				adders[i] = new LongAdder();
+			}
+			return adders;
+		}
+	}
+}
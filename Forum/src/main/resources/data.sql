@@ -1,8 +1,13 @@
-INSERT INTO USER(name, email, password) VALUES('Student', 'student@email.com', '$2a$10$5SgZ2yE03pUKXt0q7Nu2q.CujRUpbKVbwR.H5NkzT3IloGs514xAO');
+INSERT INTO USER(id, name, email, password) VALUES(1, 'Student', 'student@email.com', '$2a$10$5SgZ2yE03pUKXt0q7Nu2q.CujRUpbKVbwR.H5NkzT3IloGs514xAO');
 
-INSERT INTO COURSE(name, category) VALUES('Spring Boot', 'Programation');
-INSERT INTO COURSE(name, category) VALUES('HTML 5', 'Front-end');
+INSERT INTO COURSE(id, name, category) VALUES(1, 'Spring Boot', 'Programation');
+INSERT INTO COURSE(id, name, category) VALUES(2, 'HTML 5', 'Front-end');
 
-INSERT INTO TOPIC(title, post, creation_date, status, user_id, course_id) VALUES('Doubt', 'Error when create the project', '2019-05-05 18:00:00', 'NOT_ANSWERED', 1, 1);
-INSERT INTO TOPIC(title, post, creation_date, status, user_id, course_id) VALUES('Doubt 2', 'Project do not compile', '2019-05-05 19:00:00', 'NOT_ANSWERED', 1, 1);
-INSERT INTO TOPIC(title, post, creation_date, status, user_id, course_id) VALUES('Doubt 3', 'HTML tag', '2019-05-05 20:00:00', 'NOT_ANSWERED', 1, 2);
\ No newline at end of file
+INSERT INTO TOPIC(id, version, title, post, creation_date, last_activity, answer_count, deleted, status, user_id, course_id) VALUES(1, 0, 'Doubt', 'Error when create the project', '2019-05-05 18:00:00', '2019-05-05 18:00:00', 0, false, 'NOT_ANSWERED', 1, 1);
+INSERT INTO TOPIC(id, version, title, post, creation_date, last_activity, answer_count, deleted, status, user_id, course_id) VALUES(2, 0, 'Doubt 2', 'Project do not compile', '2019-05-05 19:00:00', '2019-05-05 19:00:00', 0, false, 'NOT_ANSWERED', 1, 1);
+INSERT INTO TOPIC(id, version, title, post, creation_date, last_activity, answer_count, deleted, status, user_id, course_id) VALUES(3, 0, 'Doubt 3', 'HTML tag', '2019-05-05 20:00:00', '2019-05-05 20:00:00', 0, false, 'NOT_ANSWERED', 1, 2);
+
+-- ids come from pooled sequences (pooled-lo), they start after the ids above
+ALTER SEQUENCE USER_SEQ RESTART WITH 2;
+ALTER SEQUENCE COURSE_SEQ RESTART WITH 3;
+ALTER SEQUENCE TOPIC_SEQ RESTART WITH 4;
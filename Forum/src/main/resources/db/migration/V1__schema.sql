@@ -0,0 +1,75 @@
+-- ids come from pooled sequences (allocationSize 50 in the entities)
+CREATE SEQUENCE USER_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE COURSE_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE TOPIC_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE ANSWER_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE USER(
+	id BIGINT NOT NULL,
+	name VARCHAR(255),
+	email VARCHAR(255),
+	password VARCHAR(255),
+	PRIMARY KEY(id)
+);
+
+CREATE TABLE PROFILE(
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	name VARCHAR(255),
+	PRIMARY KEY(id)
+);
+
+CREATE TABLE USER_PROFILES(
+	user_id BIGINT NOT NULL,
+	profiles_id BIGINT NOT NULL,
+	CONSTRAINT fk_user_profiles_user FOREIGN KEY(user_id) REFERENCES USER(id),
+	CONSTRAINT fk_user_profiles_profile FOREIGN KEY(profiles_id) REFERENCES PROFILE(id)
+);
+
+CREATE TABLE COURSE(
+	id BIGINT NOT NULL,
+	name VARCHAR(255),
+	category VARCHAR(255),
+	PRIMARY KEY(id)
+);
+
+CREATE TABLE TOPIC(
+	id BIGINT NOT NULL,
+	version BIGINT DEFAULT 0 NOT NULL,
+	title VARCHAR(255),
+	post VARCHAR(255),
+	creation_date TIMESTAMP,
+	status VARCHAR(255),
+	answer_count INTEGER DEFAULT 0 NOT NULL,
+	last_activity TIMESTAMP,
+	deleted BOOLEAN DEFAULT FALSE NOT NULL,
+	user_id BIGINT,
+	course_id BIGINT,
+	PRIMARY KEY(id),
+	CONSTRAINT fk_topic_user FOREIGN KEY(user_id) REFERENCES USER(id),
+	CONSTRAINT fk_topic_course FOREIGN KEY(course_id) REFERENCES COURSE(id)
+);
+
+CREATE TABLE ANSWER(
+	id BIGINT NOT NULL,
+	post VARCHAR(255),
+	creation_date TIMESTAMP,
+	resolved BOOLEAN DEFAULT FALSE,
+	topic_id BIGINT,
+	user_id BIGINT,
+	PRIMARY KEY(id),
+	CONSTRAINT fk_answer_topic FOREIGN KEY(topic_id) REFERENCES TOPIC(id),
+	CONSTRAINT fk_answer_user FOREIGN KEY(user_id) REFERENCES USER(id)
+);
+
+-- course_id 0 is the total of all topics
+CREATE TABLE TOPIC_COUNTER(
+	course_id BIGINT NOT NULL,
+	total BIGINT,
+	PRIMARY KEY(course_id)
+);
+
+CREATE TABLE REVOKED_TOKEN(
+	digest VARCHAR(255) NOT NULL,
+	expiration BIGINT,
+	PRIMARY KEY(digest)
+);
@@ -0,0 +1,15 @@
+-- course filter of the list: "where course_id = ? order by id desc"
+CREATE INDEX topic_course_id_id ON TOPIC(course_id, id);
+CREATE INDEX topic_creation_date ON TOPIC(creation_date);
+CREATE INDEX topic_status ON TOPIC(status);
+-- purge of the soft deleted topics
+CREATE INDEX topic_deleted ON TOPIC(deleted);
+
+-- answers of a topic: "where topic_id = ? order by id"
+CREATE INDEX answer_topic_id_id ON ANSWER(topic_id, id);
+
+-- login: "where email = ?"
+CREATE UNIQUE INDEX user_email ON USER(email);
+
+-- denylist load and purge: "where expiration > ?"
+CREATE INDEX revoked_token_expiration ON REVOKED_TOKEN(expiration);
@@ -0,0 +1,3 @@
+-- Sharded databases only (spring.flyway.locations of the sharded profile): the demo topics of V3
+-- have ids without their shard (see ShardedSequenceGenerator), they are not kept
+DELETE FROM TOPIC WHERE id IN (1, 2, 3);
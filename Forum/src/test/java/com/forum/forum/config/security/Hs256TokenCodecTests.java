@@ -0,0 +1,208 @@
+package com.forum.forum.config.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+
+class Hs256TokenCodecTests {
+
+	//the secret the application runs with, read from application.properties as Spring reads it
+	static final String SECRET = applicationSecret();
+	static final String ISSUER = "Igor - ForumAPI";
+
+	private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+	private Hs256TokenCodec codec;
+	private long issuedAt;
+	private long expiration;
+
+	@BeforeEach
+	void setUp() {
+		codec = new Hs256TokenCodec(TextCodec.BASE64.decode(SECRET), ISSUER);
+		//jjwt writes the dates in seconds
+		issuedAt = System.currentTimeMillis() / 1000 * 1000;
+		expiration = issuedAt + TimeUnit.DAYS.toMillis(1);
+	}
+
+	@Test
+	void encodesTheTokenJjwtBuilds() {
+		assertEquals(jjwt(SignatureAlgorithm.HS256, 1L, expiration), codec.encode(1L, issuedAt, expiration));
+	}
+
+	@Test
+	void jjwtReadsTheCodecToken() {
+		Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(codec.encode(42L, issuedAt, expiration)).getBody();
+		assertEquals("42", claims.getSubject());
+		assertEquals(ISSUER, claims.getIssuer());
+		assertEquals(expiration, claims.getExpiration().getTime());
+	}
+
+	@Test
+	void decodesTheJjwtToken() {
+		byte[] digest = TokenService.sha256("token");
+		TokenClaims claims = codec.decode(jjwt(SignatureAlgorithm.HS256, 42L, expiration), digest);
+		assertNotNull(claims);
+		assertEquals(Long.valueOf(42), claims.getUserId());
+		assertEquals(expiration, claims.getExpiration());
+		assertArrayEquals(digest, claims.getDigestBytes());
+		assertEquals(TokenService.digest("token"), claims.getDigest());
+	}
+
+	@Test
+	void rejectsATamperedSignature() {
+		String token = codec.encode(1L, issuedAt, expiration);
+		//not the last character: its lowest bits are not part of the 32 bytes
+		int index = token.lastIndexOf('.') + 5;
+		char replacement = token.charAt(index) == 'A' ? 'B' : 'A';
+		String tampered = token.substring(0, index) + replacement + token.substring(index + 1);
+		assertNull(codec.decode(tampered, null));
+	}
+
+	@Test
+	void rejectsATamperedPayload() {
+		String[] parts = codec.encode(1L, issuedAt, expiration).split("\\.");
+		String claims = "{\"iss\":\"" + ISSUER + "\",\"sub\":\"2\",\"iat\":" + issuedAt / 1000 + ",\"exp\":" + expiration / 1000 + "}";
+		String tampered = parts[0] + "." + BASE64URL.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+		assertNull(codec.decode(tampered, null));
+	}
+
+	@Test
+	void leavesAnotherAlgorithmToTheFallback() {
+		assertThrows(IllegalArgumentException.class, () -> codec.decode(jjwt(SignatureAlgorithm.HS512, 1L, expiration), null));
+
+		String none = Jwts.builder().setSubject("1").setExpiration(new Date(expiration)).compact();
+		assertThrows(IllegalArgumentException.class, () -> codec.decode(none, null));
+	}
+
+	@Test
+	void rejectsAnExpiredToken() {
+		long past = issuedAt - TimeUnit.HOURS.toMillis(1);
+		assertNull(codec.decode(codec.encode(1L, past - TimeUnit.DAYS.toMillis(1), past), null));
+		assertNull(codec.decode(jjwtExpired(past), null));
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		String token = codec.encode(1L, issuedAt, expiration);
+		String header = token.substring(0, token.indexOf('.'));
+		String signature = token.substring(token.lastIndexOf('.') + 1);
+
+		assertNull(codec.decode("", null));
+		assertNull(codec.decode(header, null));
+		assertNull(codec.decode(header + "." + signature, null));
+		assertNull(codec.decode(token + ".", null));
+		assertNull(codec.decode(token + "." + signature, null));
+		//truncated signature, padded signature, not base64url, not ASCII
+		assertNull(codec.decode(token.substring(0, token.length() - 2), null));
+		assertNull(codec.decode(token + "=", null));
+		assertNull(codec.decode(token.substring(0, token.length() - 1) + "*", null));
+		assertNull(codec.decode(token.substring(0, token.length() - 1) + "\u00e9", null));
+	}
+
+	@Test
+	void rejectsSignedButMalformedClaims() {
+		String header = codec.encode(1L, issuedAt, expiration).split("\\.")[0];
+		String claims = "{\"sub\":\"1\",\"exp\":" + expiration / 1000 + "}";
+		String encoded = BASE64URL.encodeToString(bytes(claims));
+		//padding and an impossible length (4n + 1) are not base64url without padding
+		assertNull(codec.decode(signed(header + "." + encoded + "="), null));
+		assertNull(codec.decode(signed(header + "." + encoded + "AAAA".substring(0, Math.floorMod(1 - encoded.length(), 4))), null));
+		//and the claims are read only once the signature matches
+		assertNotNull(codec.decode(signed(header + "." + encoded), null));
+	}
+
+	@Test
+	void leavesOtherClaimShapesToTheFallback() {
+		String header = codec.encode(1L, issuedAt, expiration).split("\\.")[0];
+		long exp = expiration / 1000;
+		String[] shapes = {
+				"{\"sub\":\"1\",\"exp\":" + exp + ",\"roles\":{\"admin\":true}}",
+				"{\"sub\":\"1\",\"exp\":" + exp + ".5}",
+				"{\"sub\":\"\\u0031\",\"exp\":" + exp + "}",
+				"{\"sub\":\"1\"}",
+				"{\"exp\":" + exp + "}",
+				"{\"sub\":\"one\",\"exp\":" + exp + "}",
+				"{\"sub\":\"1\",\"exp\":" + exp,
+				"[]" };
+		for (String shape : shapes) {
+			String token = signed(header + "." + BASE64URL.encodeToString(bytes(shape)));
+			assertThrows(IllegalArgumentException.class, () -> codec.decode(token, null), shape);
+		}
+	}
+
+	@Test
+	void reusesItsBuffersForLongerTokens() {
+		String longIssuer = new String(new char[600]).replace('\0', 'x');
+		Hs256TokenCodec longCodec = new Hs256TokenCodec(TextCodec.BASE64.decode(SECRET), longIssuer);
+		assertNotNull(longCodec.decode(longCodec.encode(7L, issuedAt, expiration), null));
+		assertEquals(Long.valueOf(7), longCodec.decode(longCodec.encode(7L, issuedAt, expiration), null).getUserId());
+		assertEquals(Long.valueOf(1), longCodec.decode(longCodec.encode(1L, issuedAt, expiration), null).getUserId());
+	}
+
+	private String jjwt(SignatureAlgorithm algorithm, Long userId, long expiration) {
+		return Jwts.builder()
+				.setIssuer(ISSUER)
+				.setSubject(userId.toString())
+				.setIssuedAt(new Date(issuedAt))
+				.setExpiration(new Date(expiration))
+				.signWith(algorithm, SECRET)
+				.compact();
+	}
+
+	private String jjwtExpired(long expiration) {
+		return Jwts.builder()
+				.setIssuer(ISSUER)
+				.setSubject("1")
+				.setIssuedAt(new Date(expiration - TimeUnit.DAYS.toMillis(1)))
+				.setExpiration(new Date(expiration))
+				.signWith(SignatureAlgorithm.HS256, SECRET)
+				.compact();
+	}
+
+	//header.claims signed with our key, whatever the claims are
+	private static String signed(String unsigned) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(TextCodec.BASE64.decode(SECRET), "HmacSHA256"));
+			return unsigned + "." + BASE64URL.encodeToString(mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII)));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static String applicationSecret() {
+		try (InputStream input = Hs256TokenCodecTests.class.getResourceAsStream("/application.properties")) {
+			Properties properties = new Properties();
+			properties.load(input);
+			return properties.getProperty("forum.jwt.secret");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,91 @@
+package com.forum.forum.config.security;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+
+/**
+ * jjwt 0.9.1 against Hs256TokenCodec, for issuing and verifying our tokens.
+ * Not a unit test: run it with {@code mvn -Pbenchmark test-compile exec:exec} (or its main method on the test classpath).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCodecBenchmark {
+
+	//the full secret of application.properties: the HMAC key length is part of what is measured
+	private static final String SECRET = Hs256TokenCodecTests.applicationSecret();
+	private static final String ISSUER = "Igor - ForumAPI";
+
+	private Hs256TokenCodec codec;
+	private long issuedAt;
+	private long expiration;
+	private String token;
+
+	@Setup
+	public void setup() {
+		codec = new Hs256TokenCodec(TextCodec.BASE64.decode(SECRET), ISSUER);
+		issuedAt = System.currentTimeMillis() / 1000 * 1000;
+		expiration = issuedAt + TimeUnit.DAYS.toMillis(1);
+		token = jjwtGenerate();
+		//the codec has to stay byte for byte compatible with the tokens issued by jjwt
+		if (!token.equals(codecGenerate())) {
+			throw new IllegalStateException("Codec token differs from jjwt: " + codecGenerate() + " / " + token);
+		}
+		if (codecVerify().getUserId() != 1L) {
+			throw new IllegalStateException("Codec could not read the jjwt token");
+		}
+	}
+
+	@Benchmark
+	public String jjwtGenerate() {
+		return Jwts.builder()
+				.setIssuer(ISSUER)
+				.setSubject("1")
+				.setIssuedAt(new Date(issuedAt))
+				.setExpiration(new Date(expiration))
+				.signWith(SignatureAlgorithm.HS256, SECRET)
+				.compact();
+	}
+
+	@Benchmark
+	public String codecGenerate() {
+		return codec.encode(1L, issuedAt, expiration);
+	}
+
+	@Benchmark
+	public Long jjwtVerify() {
+		Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+		return Long.parseLong(claims.getSubject());
+	}
+
+	@Benchmark
+	public TokenClaims codecVerify() {
+		return codec.decode(token, null);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TokenCodecBenchmark.class.getSimpleName()).build()).run();
+	}
+}
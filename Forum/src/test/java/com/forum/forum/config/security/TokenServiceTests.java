@@ -0,0 +1,71 @@
+package com.forum.forum.config.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+//the tokens the codec does not read (another header or claim shape) go through jjwt
+class TokenServiceTests {
+
+	private TokenService tokenService;
+	private long expiration;
+
+	@BeforeEach
+	void setUp() {
+		tokenService = new TokenService(100);
+		ReflectionTestUtils.setField(tokenService, "secret", Hs256TokenCodecTests.SECRET);
+		ReflectionTestUtils.setField(tokenService, "experation", "86400000");
+		tokenService.initCodec();
+		expiration = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+	}
+
+	@Test
+	void verifiesOtherShapesWithJjwt() {
+		String typed = Jwts.builder().setHeaderParam("typ", "JWT").setSubject("5").setExpiration(new Date(expiration))
+				.signWith(SignatureAlgorithm.HS256, Hs256TokenCodecTests.SECRET).compact();
+		assertEquals(Long.valueOf(5), tokenService.getUserId(typed));
+
+		String nested = Jwts.builder().setSubject("6").claim("roles", new String[] { "ADMIN" }).setExpiration(new Date(expiration))
+				.signWith(SignatureAlgorithm.HS256, Hs256TokenCodecTests.SECRET).compact();
+		assertEquals(Long.valueOf(6), tokenService.getUserId(nested));
+	}
+
+	@Test
+	void rejectsInTheFallbackWhatJjwtRejects() {
+		String unsigned = Jwts.builder().setSubject("1").setExpiration(new Date(expiration)).compact();
+		assertNull(tokenService.verify(unsigned));
+
+		String otherKey = Jwts.builder().setHeaderParam("typ", "JWT").setSubject("1").setExpiration(new Date(expiration))
+				.signWith(SignatureAlgorithm.HS256, "b3RoZXIga2V5IG9mIHNvbWVvbmUgZWxzZQ==").compact();
+		assertNull(tokenService.verify(otherKey));
+
+		String expired = Jwts.builder().setHeaderParam("typ", "JWT").setSubject("1")
+				.setExpiration(new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)))
+				.signWith(SignatureAlgorithm.HS256, Hs256TokenCodecTests.SECRET).compact();
+		assertNull(tokenService.verify(expired));
+
+		String noExpiration = Jwts.builder().setHeaderParam("typ", "JWT").setSubject("1")
+				.signWith(SignatureAlgorithm.HS256, Hs256TokenCodecTests.SECRET).compact();
+		assertNull(tokenService.verify(noExpiration));
+	}
+
+	@Test
+	void verifiesItsOwnTokensOnce() {
+		String token = Jwts.builder().setIssuer(Hs256TokenCodecTests.ISSUER).setSubject("3").setIssuedAt(new Date())
+				.setExpiration(new Date(expiration)).signWith(SignatureAlgorithm.HS256, Hs256TokenCodecTests.SECRET).compact();
+		TokenClaims claims = tokenService.verify(token);
+		assertEquals(Long.valueOf(3), claims.getUserId());
+		assertEquals(TokenService.digest(token), claims.getDigest());
+		//the second time comes from the cache of verified tokens
+		assertEquals(claims, tokenService.verify(token));
+	}
+}
@@ -0,0 +1,81 @@
+package com.forum.forum.config.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.forum.forum.model.Answer;
+import com.forum.forum.model.Topic;
+import com.forum.forum.repository.AnswerRepository;
+import com.forum.forum.repository.CourseRepository;
+import com.forum.forum.repository.TopicRepository;
+import com.forum.forum.repository.UserRepository;
+import com.forum.forum.service.TopicShards;
+
+//two in-memory shards; inserts switch shard every 30 rows, so the pooled blocks (50) run out on both shards
+@SpringBootTest(properties = "forum.datasource.shard.urls=jdbc:h2:mem:sequence-shard-0,jdbc:h2:mem:sequence-shard-1")
+@ActiveProfiles("sharded")
+class ShardedSequenceGeneratorTests {
+
+	private static final int ROUNDS = 4;
+	private static final int PER_ROUND = 30;
+
+	@Autowired
+	private TopicShards topicShards;
+	@Autowired
+	private TopicRepository topicRepository;
+	@Autowired
+	private AnswerRepository answerRepository;
+	@Autowired
+	private CourseRepository courseRepository;
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void topicIdsAreUniqueAndCarryTheirShard() {
+		Set<Long> ids = new HashSet<>();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int shard = 0; shard < 2; shard++) {
+				for (int i = 0; i < PER_ROUND; i++) {
+					Long id = insertTopic(shard);
+					assertTrue(ids.add(id), "duplicate topic id " + id);
+					assertEquals(shard, topicShards.ofTopic(id));
+				}
+			}
+		}
+	}
+
+	@Test
+	void answerIdsAreUniqueWithinTheirShard() {
+		Long[] topics = { insertTopic(0), insertTopic(1) };
+		Set<Long> shard0 = new HashSet<>();
+		Set<Long> shard1 = new HashSet<>();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int i = 0; i < PER_ROUND; i++) {
+				Long id = insertAnswer(0, topics[0]);
+				assertTrue(shard0.add(id), "duplicate answer id " + id + " on shard 0");
+			}
+			for (int i = 0; i < PER_ROUND; i++) {
+				Long id = insertAnswer(1, topics[1]);
+				assertTrue(shard1.add(id), "duplicate answer id " + id + " on shard 1");
+			}
+		}
+	}
+
+	private Long insertTopic(int shard) {
+		return topicShards.on(shard, () ->
+				topicRepository.save(new Topic("Sequence", "One id per topic", courseRepository.getOne(1L))).getId());
+	}
+
+	private Long insertAnswer(int shard, Long topicId) {
+		return topicShards.on(shard, () ->
+				answerRepository.save(new Answer("Answer", topicRepository.getOne(topicId), userRepository.getOne(1L))).getId());
+	}
+}